@@ -0,0 +1,44 @@
+package com.codeday.productivity.Config;
+
+import com.codeday.productivity.journal.ActivityJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration for the activity event journal.
+ * <p>
+ * Provides the memory-mapped journal that running timer changes are acknowledged from. The
+ * journal is closed on shutdown, after everything appended to it has been forced to disk. The
+ * directory has to be an absolute path on storage that outlives the process, since events not
+ * yet applied to the database are only kept there. The default is {@code data/activity-journal}
+ * under the working directory, which is writable and persistent on the Azure Web App.
+ * </p>
+ */
+@Configuration
+public class ActivityJournalConfig {
+
+    /**
+     * Provides the activity journal.
+     *
+     * @param directory         The directory the segment files are kept in.
+     * @param segmentRecords    The number of events per segment file.
+     * @param groupCommitWindow How long to wait for more events before forcing them to disk.
+     * @return The activity journal.
+     * @throws IllegalArgumentException If the directory is not an absolute path.
+     */
+    @Bean(destroyMethod = "close")
+    public ActivityJournal activityJournal(
+            @Value("${productivity.journal.directory:${user.dir}/data/activity-journal}") String directory,
+            @Value("${productivity.journal.segment-records:1048576}") int segmentRecords,
+            @Value("${productivity.journal.group-commit-window:PT0S}") Duration groupCommitWindow) {
+        Path path = Path.of(directory);
+        if (!path.isAbsolute()) {
+            throw new IllegalArgumentException("Activity journal directory must be an absolute path: " + directory);
+        }
+        return new ActivityJournal(path, segmentRecords, groupCommitWindow);
+    }
+}
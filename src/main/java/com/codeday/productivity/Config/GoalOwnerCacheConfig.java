@@ -0,0 +1,39 @@
+package com.codeday.productivity.Config;
+
+import com.codeday.productivity.cache.ExpiringLruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the in-process goal owner cache.
+ * <p>
+ * Provides the bounded cache of goal ID to owning user ID used by ownership checks, and
+ * publishes its statistics under {@code /actuator/metrics/productivity.cache.*} with the tag
+ * {@code cache=goal-owners}.
+ * </p>
+ */
+@Configuration
+public class GoalOwnerCacheConfig {
+
+    /**
+     * Provides the goal owner cache.
+     *
+     * @param maxSize  The maximum number of goals kept in the cache.
+     * @param ttl      How long a cached owner stays valid.
+     * @param registry The meter registry the cache statistics are published to.
+     * @return The owning user ID keyed by goal ID.
+     */
+    @Bean
+    public ExpiringLruCache<Integer, Integer> goalOwnerCache(
+            @Value("${productivity.cache.goal-owners.max-size:50000}") int maxSize,
+            @Value("${productivity.cache.goal-owners.ttl:PT10M}") Duration ttl,
+            MeterRegistry registry) {
+        ExpiringLruCache<Integer, Integer> cache = new ExpiringLruCache<>(maxSize, ttl);
+        UserCacheConfig.bindMetrics(cache, "goal-owners", registry);
+        return cache;
+    }
+}
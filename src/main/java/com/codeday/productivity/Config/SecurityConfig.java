@@ -1,5 +1,6 @@
 package com.codeday.productivity.Config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,13 +28,15 @@ public class SecurityConfig {
      * Provides a BCrypt password encoder bean.
      * <p>
      * The bean will be used to encode and validate passwords in the application.
+     * The cost factor is read from {@code productivity.security.bcrypt-strength}.
      * </p>
      *
+     * @param strength The BCrypt cost factor (log2 of the number of rounds), between 4 and 31.
      * @return A {@link BCryptPasswordEncoder} instance.
      */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(@Value("${productivity.security.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -0,0 +1,68 @@
+package com.codeday.productivity.Config;
+
+import com.codeday.productivity.cache.CachedUser;
+import com.codeday.productivity.cache.ExpiringLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the in-process user cache.
+ * <p>
+ * Provides the bounded read-through cache that sits in front of user lookups by ID and
+ * publishes its hit, miss and eviction counts through Micrometer, so they are visible under
+ * {@code /actuator/metrics/productivity.cache.*} with the tag {@code cache=users}.
+ * </p>
+ */
+@Configuration
+public class UserCacheConfig {
+
+    /**
+     * Provides the user identity cache.
+     *
+     * @param maxSize  The maximum number of users kept in the cache.
+     * @param ttl      How long a cached user stays valid.
+     * @param registry The meter registry the cache statistics are published to.
+     * @return The user cache keyed by user ID.
+     */
+    @Bean
+    public ExpiringLruCache<Integer, CachedUser> userCache(
+            @Value("${productivity.cache.users.max-size:10000}") int maxSize,
+            @Value("${productivity.cache.users.ttl:PT5M}") Duration ttl,
+            MeterRegistry registry) {
+        ExpiringLruCache<Integer, CachedUser> cache = new ExpiringLruCache<>(maxSize, ttl);
+        bindMetrics(cache, "users", registry);
+        return cache;
+    }
+
+    /**
+     * Publishes the statistics of a cache under the {@code productivity.cache.*} meters.
+     *
+     * @param cache    The cache to publish.
+     * @param name     The value of the {@code cache} tag.
+     * @param registry The meter registry.
+     */
+    static void bindMetrics(ExpiringLruCache<?, ?> cache, String name, MeterRegistry registry) {
+        FunctionCounter.builder("productivity.cache.hits", cache, ExpiringLruCache::hitCount)
+                .tag("cache", name)
+                .description("Number of cache lookups that found a valid entry")
+                .register(registry);
+        FunctionCounter.builder("productivity.cache.misses", cache, ExpiringLruCache::missCount)
+                .tag("cache", name)
+                .description("Number of cache lookups that had to go to the database")
+                .register(registry);
+        FunctionCounter.builder("productivity.cache.evictions", cache, ExpiringLruCache::evictionCount)
+                .tag("cache", name)
+                .description("Number of entries evicted for size or expiry")
+                .register(registry);
+        Gauge.builder("productivity.cache.size", cache, ExpiringLruCache::size)
+                .tag("cache", name)
+                .description("Number of entries currently cached")
+                .register(registry);
+    }
+}
@@ -0,0 +1,33 @@
+package com.codeday.productivity.cache;
+
+import com.codeday.productivity.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * CachedUser is the entry kept in the user cache for a {@link User} known to exist.
+ *
+ * <p>
+ * Only the identity is cached, since lookups by ID only need to confirm that the user exists
+ * before handing out a reference to it; callers that need any other field load the full
+ * entity from the database.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class CachedUser {
+    private final int id;
+
+    /**
+     * Creates a snapshot of the given user.
+     *
+     * @param user The user to snapshot.
+     * @return The snapshot.
+     */
+    public static CachedUser of(User user) {
+        return new CachedUser(user.getId());
+    }
+}
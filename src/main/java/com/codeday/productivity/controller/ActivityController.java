@@ -3,18 +3,36 @@ package com.codeday.productivity.controller;
 import com.codeday.productivity.entity.Activity;
 import com.codeday.productivity.entity.User;
 import com.codeday.productivity.exceptions.ActivityNotFoundException;
+import com.codeday.productivity.exceptions.ActivityNotRunningException;
 import com.codeday.productivity.exceptions.UnauthorizedException;
+import com.codeday.productivity.exceptions.UserNotFoundException;
+import com.codeday.productivity.model.ActivityResponse;
+import com.codeday.productivity.model.ActivityRollupBucket;
+import com.codeday.productivity.model.ActivityTimer;
+import com.codeday.productivity.model.CursorPage;
+import com.codeday.productivity.service.ActivityExportService;
+import com.codeday.productivity.service.ActivityRollupService;
 import com.codeday.productivity.service.ActivityService;
+import com.codeday.productivity.service.OwnershipService;
 import com.codeday.productivity.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * ActivityController class to handle activity-related HTTP requests.
@@ -23,19 +41,31 @@ import java.util.List;
 @RequestMapping("api/v1/users/{userId}/activities")
 public class ActivityController {
     private static final Logger logger = LogManager.getLogger(ActivityController.class);
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final String CSV_VALUE = "text/csv";
     private final ActivityService activityService;
     private final UserService userService;
+    private final ActivityRollupService rollupService;
+    private final ActivityExportService exportService;
+    private final OwnershipService ownershipService;
 
     /**
      * Constructs a new instance of ActivityController.
      *
      * @param activityService ActivityService to handle logic related to activities.
      * @param userService     UserService to handle logic related to users.
+     * @param rollupService   ActivityRollupService to read the precomputed activity totals.
+     * @param exportService   ActivityExportService to stream activity exports.
+     * @param ownershipService OwnershipService to check that activities belong to the user.
      */
     @Autowired
-    public ActivityController(ActivityService activityService, UserService userService) {
+    public ActivityController(ActivityService activityService, UserService userService, ActivityRollupService rollupService,
+                              ActivityExportService exportService, OwnershipService ownershipService) {
         this.activityService = activityService;
         this.userService = userService;
+        this.rollupService = rollupService;
+        this.exportService = exportService;
+        this.ownershipService = ownershipService;
     }
 
     /**
@@ -53,7 +83,7 @@ public class ActivityController {
         try {
             User user = userService.getUserById(userId);
             Activity createdActivity = activityService.saveActivityForUserAndGoal(user, activity, goalId);
-            return new ResponseEntity<>(createdActivity, HttpStatus.CREATED);
+            return new ResponseEntity<>(ActivityResponse.from(createdActivity), HttpStatus.CREATED);
         } catch (ActivityNotFoundException | UnauthorizedException e) {
             logger.error(e.getMessage(), e);
             return new ResponseEntity<>(e.getMessage(), HttpStatus.UNAUTHORIZED);
@@ -75,7 +105,7 @@ public class ActivityController {
     public ResponseEntity<?> getActivitiesByGoalId(@PathVariable int userId, @PathVariable int goalId) {
         try {
             User user = userService.getUserById(userId);
-            List<Activity> activities = activityService.findByGoalId(goalId, user);
+            List<ActivityResponse> activities = activityService.findByGoalId(goalId, user);
             return new ResponseEntity<>(activities, HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error fetching activities by goal ID", e);
@@ -94,7 +124,7 @@ public class ActivityController {
     public ResponseEntity<?> getAllActivitiesByUser(@PathVariable int userId) {
         try {
             User user = userService.getUserById(userId);
-            List<Activity> activities = activityService.getAllActivitiesByUser(user);
+            List<ActivityResponse> activities = activityService.getAllActivitiesByUser(user);
             return new ResponseEntity<>(activities, HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error fetching activities", e);
@@ -102,6 +132,43 @@ public class ActivityController {
         }
     }
 
+    /**
+     * Exports all activities of a user as a download, streamed as NDJSON or CSV.
+     * <p>
+     * Rows are written to the response as they are read from the database, so the export is
+     * never held in memory as a whole, however many activities the user has.
+     * </p>
+     *
+     * @param userId   The ID of the user whose activities are exported.
+     * @param format   The output format: ndjson or csv (optional, defaults to ndjson).
+     * @param response The HTTP response that receives the export.
+     * @throws IOException If writing the response fails.
+     */
+    @GetMapping("/export")
+    public void exportActivities(@PathVariable int userId, @RequestParam(defaultValue = "ndjson") String format,
+                                 HttpServletResponse response) throws IOException {
+        ActivityExportService.Format exportFormat;
+        try {
+            exportFormat = ActivityExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            userService.getUserById(userId);
+        } catch (UserNotFoundException e) {
+            logger.error(e.getMessage());
+            response.sendError(HttpStatus.NOT_FOUND.value(), e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad Request: {}", e.getMessage());
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unsupported export format: " + format);
+            return;
+        }
+
+        boolean csv = exportFormat == ActivityExportService.Format.CSV;
+        response.setContentType(csv ? CSV_VALUE : NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"activities-" + userId + (csv ? ".csv" : ".ndjson") + "\"");
+        exportService.exportActivities(userId, exportFormat, response.getWriter());
+    }
+
     /**
      * Fetches the activities for a given user based on their completion status.
      *
@@ -114,7 +181,7 @@ public class ActivityController {
     public ResponseEntity<?> getActivitiesByCompletionStatus(@PathVariable int userId, @PathVariable String isComplete) {
         try {
             User user = userService.getUserById(userId);
-            List<Activity> activities = activityService.findByUserAndIsComplete(user, isComplete);
+            List<ActivityResponse> activities = activityService.findByUserAndIsComplete(user, isComplete);
             return new ResponseEntity<>(activities, HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error fetching activities by completion status", e);
@@ -122,6 +189,40 @@ public class ActivityController {
         }
     }
 
+    /**
+     * Fetches the activities for a given user based on their completion status, one page at a time.
+     * <p>
+     * Pages are keyset-paginated on the start date and ID: pass the {@code nextCursor} of a page
+     * as {@code cursor} to fetch the next one. Activities without a start date come first.
+     * </p>
+     *
+     * @param userId     The ID of the user for whom the activities need to be fetched.
+     * @param isComplete The completion status to filter the activities.
+     * @param cursor     The continuation token of the previous page (optional).
+     * @param limit      The page size (optional, capped at the configured maximum).
+     * @return A ResponseEntity containing a page of activities and HTTP status OK, or an error
+     *         message and HTTP status BAD_REQUEST, NOT_FOUND or INTERNAL_SERVER_ERROR.
+     */
+    @GetMapping("/status/{isComplete}/page")
+    public ResponseEntity<?> getActivitiesPageByCompletionStatus(@PathVariable int userId, @PathVariable String isComplete,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            User user = userService.getUserById(userId);
+            CursorPage<ActivityResponse> page = activityService.getActivitiesPageByCompletionStatus(user, isComplete, cursor, limit);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (UserNotFoundException e) {
+            logger.error(e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad Request: {}", e.getMessage());
+            return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error fetching activities by completion status", e);
+            return new ResponseEntity<>("Error fetching activities", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Fetches the activities for a given user that fall within a specified date range.
      *
@@ -137,7 +238,7 @@ public class ActivityController {
                                                       @RequestParam("endDate") Instant endDate) {
         try {
             User user = userService.getUserById(userId);
-            List<Activity> activities = activityService.findByUserAndStartDateBetween(user, startDate, endDate);
+            List<ActivityResponse> activities = activityService.findByUserAndStartDateBetween(user, startDate, endDate);
             return new ResponseEntity<>(activities, HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error fetching activities by date range", e);
@@ -145,20 +246,88 @@ public class ActivityController {
         }
     }
 
+    /**
+     * Fetches the activities for a given user that start within a specified date range, one page
+     * at a time, ordered by start date and ID.
+     *
+     * @param userId    The ID of the user for whom the activities need to be fetched.
+     * @param startDate The starting date of the date range, inclusive.
+     * @param endDate   The ending date of the date range, inclusive.
+     * @param cursor    The continuation token of the previous page (optional).
+     * @param limit     The page size (optional, capped at the configured maximum).
+     * @return A ResponseEntity containing a page of activities and HTTP status OK, or an error
+     *         message and HTTP status BAD_REQUEST, NOT_FOUND or INTERNAL_SERVER_ERROR.
+     */
+    @GetMapping("/date-range/page")
+    public ResponseEntity<?> getActivitiesPageByDateRange(@PathVariable int userId,
+                                                          @RequestParam("startDate") Instant startDate,
+                                                          @RequestParam("endDate") Instant endDate,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limit) {
+        try {
+            User user = userService.getUserById(userId);
+            CursorPage<ActivityResponse> page = activityService.getActivitiesPageByDateRange(user, startDate, endDate, cursor, limit);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (UserNotFoundException e) {
+            logger.error(e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad Request: {}", e.getMessage());
+            return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error fetching activities by date range", e);
+            return new ResponseEntity<>("Error fetching activities", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Fetches the activity totals of a user per activity type and day, week or month, from the
+     * precomputed rollups of stopped activities.
+     *
+     * @param userId      The ID of the user for whom the totals are fetched.
+     * @param granularity The bucket size: day, week or month.
+     * @param from        The first day of the range, as YYYY-MM-DD.
+     * @param to          The day after the range, as YYYY-MM-DD.
+     * @return A ResponseEntity containing the buckets ordered by start day and type and HTTP status OK,
+     *         or an error message and HTTP status BAD_REQUEST, NOT_FOUND or INTERNAL_SERVER_ERROR.
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<?> getActivityRollups(@PathVariable int userId,
+                                                @RequestParam(defaultValue = "day") String granularity,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            User user = userService.getUserById(userId);
+            ActivityRollupService.Granularity bucketSize =
+                    ActivityRollupService.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+            List<ActivityRollupBucket> buckets = rollupService.getRollups(user.getId(), bucketSize, from, to);
+            return new ResponseEntity<>(buckets, HttpStatus.OK);
+        } catch (UserNotFoundException e) {
+            logger.error(e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad Request: {}", e.getMessage());
+            return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error fetching activity rollups", e);
+            return new ResponseEntity<>("Error fetching activity rollups", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Starts an existing activity.
      *
      * @param userId     User ID
      * @param goalId     Goal ID
      * @param activityId Activity ID
-     * @return ResponseEntity with the updated activity or an error message.
+     * @return ResponseEntity with the running timer or an error message.
      */
     @PutMapping("/{goalId}/{activityId}/start")
     public ResponseEntity<?> startActivity(@PathVariable int userId, @PathVariable int goalId, @PathVariable int activityId) {
         try {
             User user = userService.getUserById(userId);
-            Activity activity = activityService.startActivity(user, activityId, goalId);
-            return new ResponseEntity<>(activity, HttpStatus.OK);
+            ActivityTimer timer = activityService.startActivity(user, activityId, goalId);
+            return new ResponseEntity<>(timer, HttpStatus.OK);
         } catch (ActivityNotFoundException | UnauthorizedException e) {
             logger.error(e.getMessage(), e);
             return new ResponseEntity<>(e.getMessage(), HttpStatus.UNAUTHORIZED);
@@ -174,17 +343,20 @@ public class ActivityController {
      * @param userId     User ID
      * @param goalId     Goal ID
      * @param activityId Activity ID
-     * @return ResponseEntity with the updated activity or an error message.
+     * @return ResponseEntity with the stopped timer or an error message.
      */
     @PutMapping("/{goalId}/{activityId}/stop")
     public ResponseEntity<?> stopActivity(@PathVariable int userId, @PathVariable int goalId, @PathVariable int activityId) {
         try {
             User user = userService.getUserById(userId);
-            Activity activity = activityService.stopActivity(user, activityId, goalId);
-            return new ResponseEntity<>(activity, HttpStatus.OK);
+            ActivityTimer timer = activityService.stopActivity(user, activityId, goalId);
+            return new ResponseEntity<>(timer, HttpStatus.OK);
         } catch (ActivityNotFoundException | UnauthorizedException e) {
             logger.error(e.getMessage(), e);
             return new ResponseEntity<>(e.getMessage(), HttpStatus.UNAUTHORIZED);
+        } catch (ActivityNotRunningException e) {
+            logger.error(e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             logger.error("Error stopping activity", e);
             return new ResponseEntity<>("Error stopping activity", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -204,20 +376,21 @@ public class ActivityController {
                                             @PathVariable int activityId,
                                             @RequestBody Activity updatedActivity) {
         try {
-            User user = userService.getUserById(userId);
-
             // Set the ID from the path into updatedActivity
             updatedActivity.setId(activityId);
 
-            // Validate if the activity exists and belongs to the user
-            activityService.findActivityByIdAndUser(activityId, user);
+            // Validate if the activity exists and belongs to the user, reading only its owner
+            ownershipService.requireActivityOwner(activityId, userId);
 
             // Delegate all updates to the updateActivity method in the service layer
             Activity savedActivity = activityService.updateActivity(activityId, updatedActivity);
-            return new ResponseEntity<>(savedActivity, HttpStatus.OK);
+            return new ResponseEntity<>(ActivityResponse.from(savedActivity), HttpStatus.OK);
         } catch (ActivityNotFoundException | UnauthorizedException e) {
             logger.error(e.getMessage(), e);
             return new ResponseEntity<>(e.getMessage(), HttpStatus.UNAUTHORIZED);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.error("Conflicting activity update: {}", e.getMessage());
+            return new ResponseEntity<>("Activity was changed by another request", HttpStatus.CONFLICT);
         } catch (Exception e) {
             logger.error("Error updating activity", e);
             return new ResponseEntity<>("Error updating activity", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -234,12 +407,10 @@ public class ActivityController {
     @DeleteMapping("/{activityId}")
     public ResponseEntity<?> deleteActivity(@PathVariable int userId, @PathVariable int activityId) {
         try {
-            User user = userService.getUserById(userId);
-
-            // Use the existingActivity variable to check if the activity exists for the user
-            Activity existingActivity = activityService.findActivityByIdAndUser(activityId, user);
+            // Check that the activity exists for the user, reading only its owner
+            ownershipService.requireActivityOwner(activityId, userId);
 
-            activityService.deleteActivity(existingActivity.getId());
+            activityService.deleteActivity(activityId);
             return new ResponseEntity<>("Activity deleted successfully", HttpStatus.OK);
         } catch (ActivityNotFoundException | UnauthorizedException e) {
             logger.error(e.getMessage(), e);
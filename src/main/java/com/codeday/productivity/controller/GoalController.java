@@ -1,14 +1,22 @@
 package com.codeday.productivity.controller;
 import com.codeday.productivity.entity.Goal;
 import com.codeday.productivity.entity.User;
+import com.codeday.productivity.model.CursorPage;
+import com.codeday.productivity.model.GoalResponse;
+import com.codeday.productivity.model.GoalSummary;
+import com.codeday.productivity.repository.GoalRepositoryCustom.DateField;
 import com.codeday.productivity.service.GoalService;
 import com.codeday.productivity.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("api/v1/users/{userId}/goals")
@@ -26,29 +34,76 @@ public class GoalController {
     }
 
     @PostMapping
-    public Goal createGoal(@PathVariable int userId, @RequestBody Goal goal){
+    public GoalResponse createGoal(@PathVariable int userId, @RequestBody Goal goal){
         User user = userService.getUserById(userId);
         goal.setUser(user);
-        return goalService.saveGoalForUser(user, goal);
+        return GoalResponse.from(goalService.saveGoalForUser(user, goal));
     }
 
     @GetMapping
-    public List<Goal> getAllGoalsByUser(@PathVariable int userId){
+    public List<GoalResponse> getAllGoalsByUser(@PathVariable int userId){
         User user = userService.getUserById(userId);
         return goalService.getAllGoalsByUser(user);
     }
 
+    @GetMapping("/summary")
+    public List<GoalSummary> getGoalSummariesByUser(@PathVariable int userId){
+        User user = userService.getUserById(userId);
+        return goalService.getGoalSummariesByUser(user);
+    }
+
     @GetMapping("/complete/{isComplete}")
-    public List<Goal> getAllGoalsByUserAndCompletion(@PathVariable int userId, @PathVariable String isComplete){
+    public List<GoalResponse> getAllGoalsByUserAndCompletion(@PathVariable int userId, @PathVariable String isComplete){
         User user = userService.getUserById(userId);
         return goalService.getAllGoalsByUserAndCompletion(user, isComplete);
     }
 
     @GetMapping("/date/{startDate}")
-    public List<Goal> getAllGoalsByUserAndStartDate(@PathVariable int userId, @PathVariable Instant startDate){
+    public List<GoalResponse> getAllGoalsByUserAndStartDate(@PathVariable int userId, @PathVariable Instant startDate){
         User user = userService.getUserById(userId);
         return goalService.getAllGoalsByUserAndStartDate(user, startDate);
     }
 
+    /**
+     * Lists a user's goals whose start, due or end date falls in {@code [from, to)}, one
+     * keyset-paginated page at a time, e.g. the goals due this week or started in March.
+     *
+     * @param field  The date to filter and sort on: {@code startDate}, {@code dueDate} or {@code endDate}.
+     * @param from   The inclusive start of the range (optional).
+     * @param to     The exclusive end of the range (optional).
+     * @param order  {@code asc} or {@code desc} (optional, defaults to {@code asc}).
+     * @param cursor The continuation token of the previous page (optional).
+     * @param limit  The page size (optional, capped at the configured maximum).
+     * @return A page of goals and the token of the next page.
+     */
+    @GetMapping("/range")
+    public CursorPage<GoalResponse> getGoalsPageByDateRange(@PathVariable int userId,
+                                                            @RequestParam(defaultValue = "startDate") String field,
+                                                            @RequestParam(required = false) Instant from,
+                                                            @RequestParam(required = false) Instant to,
+                                                            @RequestParam(defaultValue = "asc") String order,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer limit){
+        if (!order.equalsIgnoreCase("asc") && !order.equalsIgnoreCase("desc")) {
+            throw new IllegalArgumentException("Order must be asc or desc");
+        }
+        User user = userService.getUserById(userId);
+        return goalService.getGoalsPageByDateRange(user, DateField.fromProperty(field), from, to,
+                order.equalsIgnoreCase("desc"), cursor, limit);
+    }
+
+    @DeleteMapping("/{goalId}")
+    public ResponseEntity<Void> deleteGoal(@PathVariable int userId, @PathVariable int goalId){
+        User user = userService.getUserById(userId);
+        Goal goal = goalService.getGoalById(goalId);
+        goalService.removeGoalForUser(user, goal);
+        return ResponseEntity.accepted().build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
 }
 
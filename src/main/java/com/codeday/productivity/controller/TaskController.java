@@ -2,13 +2,20 @@ package com.codeday.productivity.controller;
 
 import com.codeday.productivity.entity.Goal;
 import com.codeday.productivity.entity.Task;
-import com.codeday.productivity.entity.User;
+import com.codeday.productivity.exceptions.GoalNotFoundException;
+import com.codeday.productivity.exceptions.UnauthorizedException;
+import com.codeday.productivity.exceptions.UpdateConflictException;
+import com.codeday.productivity.model.TaskOperation;
+import com.codeday.productivity.model.TaskOperationResult;
+import com.codeday.productivity.model.TaskResponse;
 import com.codeday.productivity.service.GoalService;
+import com.codeday.productivity.service.OwnershipService;
 import com.codeday.productivity.service.TaskService;
-import com.codeday.productivity.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -19,38 +26,57 @@ import java.util.List;
 public class TaskController {
     private static final Logger logger = LogManager.getLogger(TaskController.class);
     private final TaskService taskService;
-    private final UserService userService;
     private final GoalService goalService;
+    private final OwnershipService ownershipService;
 
     @Autowired
-    public TaskController(TaskService taskService, UserService userService, GoalService goalService) {
+    public TaskController(TaskService taskService, GoalService goalService, OwnershipService ownershipService) {
         this.taskService = taskService;
-        this.userService = userService;
         this.goalService = goalService;
+        this.ownershipService = ownershipService;
     }
 
     @PostMapping
     public ResponseEntity<?> createTask(@PathVariable int userId, @PathVariable int goalId, @RequestBody Task task) {
+        ownershipService.requireGoalOwner(goalId, userId);
         try {
-            User user = userService.getUserById(userId);
-            Goal goal = goalService.getGoalById(goalId);
-            verifyUserGoalAssociation(user, goal);
+            Goal goal = goalService.getGoalReference(goalId);
             task.setGoal(goal);
             Task createdTask = taskService.saveTaskForGoal(goal, task);
-            return new ResponseEntity<>(createdTask, HttpStatus.CREATED);
+            return new ResponseEntity<>(TaskResponse.from(createdTask), HttpStatus.CREATED);
         } catch (Exception e) {
             logger.error("Error creating task", e);
             return new ResponseEntity<>("Error creating task", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // Applies many create, update, complete and delete operations in one transaction
+    @PostMapping("/bulk")
+    public ResponseEntity<?> applyTaskOperations(@PathVariable int userId, @PathVariable int goalId,
+                                                 @RequestBody List<TaskOperation> operations) {
+        ownershipService.requireGoalOwner(goalId, userId);
+        try {
+            Goal goal = goalService.getGoalReference(goalId);
+            List<TaskOperationResult> results = taskService.applyOperations(goal, operations);
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.error("Conflicting bulk task request: {}", e.getMessage());
+            return new ResponseEntity<>("A task was changed by another request", HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid bulk task request: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error applying task operations", e);
+            return new ResponseEntity<>("Error applying task operations", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GetMapping
     public ResponseEntity<?> getAllTasksByGoal(@PathVariable int userId, @PathVariable int goalId) {
+        ownershipService.requireGoalOwner(goalId, userId);
         try {
-            User user = userService.getUserById(userId);
-            Goal goal = goalService.getGoalById(goalId);
-            verifyUserGoalAssociation(user, goal);
-            List<Task> tasks = taskService.getAllTasksByGoal(goal);
+            Goal goal = goalService.getGoalReference(goalId);
+            List<TaskResponse> tasks = taskService.getAllTasksByGoal(goal);
             return new ResponseEntity<>(tasks, HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error fetching tasks", e);
@@ -60,11 +86,10 @@ public class TaskController {
 
     @GetMapping("/{taskId}")
     public ResponseEntity<?> getTaskById(@PathVariable int userId, @PathVariable int goalId, @PathVariable int taskId) {
+        ownershipService.requireGoalOwner(goalId, userId);
         try {
-            User user = userService.getUserById(userId);
-            Goal goal = goalService.getGoalById(goalId);
-            verifyUserGoalAssociation(user, goal);
-            Task task = taskService.getTaskByGoalAndId(goal, taskId)
+            Goal goal = goalService.getGoalReference(goalId);
+            TaskResponse task = taskService.getTaskByGoalAndId(goal, taskId)
                     .orElseThrow(() -> new RuntimeException("Task not found"));
             return new ResponseEntity<>(task, HttpStatus.OK);
         } catch (Exception e) {
@@ -73,28 +98,69 @@ public class TaskController {
         }
     }
 
+    // An If-Match header with the task's version makes the update fail with 409 if someone else changed it first
     @PutMapping("/{taskId}")
-    public ResponseEntity<?> updateTask(@PathVariable int userId, @PathVariable int goalId, @PathVariable int taskId, @RequestBody Task task) {
+    public ResponseEntity<?> updateTask(@PathVariable int userId, @PathVariable int goalId, @PathVariable int taskId, @RequestBody Task task,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ownershipService.requireGoalOwner(goalId, userId);
         try {
-            User user = userService.getUserById(userId);
-            Goal goal = goalService.getGoalById(goalId);
-            verifyUserGoalAssociation(user, goal);
+            Goal goal = goalService.getGoalReference(goalId);
             task.setGoal(goal);
             task.setId(taskId);
-            Task updatedTask = taskService.updateTaskForGoal(goal, task);
+            TaskResponse updatedTask = taskService.updateTaskForGoal(goal, task, parseVersion(ifMatch));
             return new ResponseEntity<>(updatedTask, HttpStatus.OK);
+        } catch (UpdateConflictException e) {
+            logger.error(e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid task update: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             logger.error("Error updating task", e);
             return new ResponseEntity<>("Error updating task", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    @PutMapping("/{taskId}/complete")
+    public ResponseEntity<?> markTaskAsComplete(@PathVariable int userId, @PathVariable int goalId, @PathVariable int taskId,
+                                                @RequestParam(defaultValue = "true") boolean isComplete) {
+        ownershipService.requireGoalOwner(goalId, userId);
+        try {
+            Goal goal = goalService.getGoalReference(goalId);
+            taskService.markTaskAsComplete(goal, taskId, isComplete);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid task completion: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error completing task", e);
+            return new ResponseEntity<>("Error completing task", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Accepted right away; the time is written to the task in the background
+    @PostMapping("/{taskId}/time")
+    public ResponseEntity<?> recordTimeSpent(@PathVariable int userId, @PathVariable int goalId, @PathVariable int taskId,
+                                             @RequestParam long seconds) {
+        ownershipService.requireGoalOwner(goalId, userId);
+        try {
+            Goal goal = goalService.getGoalReference(goalId);
+            taskService.recordTimeSpent(goal, taskId, seconds);
+            return new ResponseEntity<>(HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid time record: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error recording time spent", e);
+            return new ResponseEntity<>("Error recording time spent", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @DeleteMapping("/{taskId}")
     public ResponseEntity<?> deleteTask(@PathVariable int userId, @PathVariable int goalId, @PathVariable int taskId) {
+        ownershipService.requireGoalOwner(goalId, userId);
         try {
-            User user = userService.getUserById(userId);
-            Goal goal = goalService.getGoalById(goalId);
-            verifyUserGoalAssociation(user, goal);
+            Goal goal = goalService.getGoalReference(goalId);
             taskService.deleteTaskByGoal(goal, taskId);
             return new ResponseEntity<>("Task deleted successfully", HttpStatus.OK);
         } catch (Exception e) {
@@ -103,10 +169,32 @@ public class TaskController {
         }
     }
 
-    private void verifyUserGoalAssociation(User user, Goal goal) {
-        if (goal.getUser().getId() != user.getId()) {
-            logger.error("Goal does not belong to the given user");
-            throw new RuntimeException("Goal does not belong to the given user");
+    // Accepts both the quoted entity tag form and a bare version number
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String version = ifMatch.trim();
+        if (version.startsWith("W/")) {
+            version = version.substring(2);
         }
+        version = version.replace("\"", "");
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must hold a task version");
+        }
+    }
+
+    @ExceptionHandler(GoalNotFoundException.class)
+    public ResponseEntity<String> handleGoalNotFoundException(GoalNotFoundException e) {
+        logger.error(e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(UnauthorizedException.class)
+    public ResponseEntity<String> handleUnauthorizedException(UnauthorizedException e) {
+        logger.error(e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.UNAUTHORIZED);
     }
 }
\ No newline at end of file
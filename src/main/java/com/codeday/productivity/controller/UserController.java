@@ -1,21 +1,36 @@
 package com.codeday.productivity.controller;
 
 import com.codeday.productivity.model.CreateUserRequest;
+import com.codeday.productivity.model.CursorPage;
+import com.codeday.productivity.model.UserImportResult;
+import com.codeday.productivity.model.UserSearchResult;
 import com.codeday.productivity.model.UserResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import com.codeday.productivity.entity.User;
+import com.codeday.productivity.exceptions.HashingCapacityExceededException;
 import com.codeday.productivity.exceptions.UserAlreadyExistsException;
+import com.codeday.productivity.exceptions.UserStillActiveException;
+import com.codeday.productivity.service.PurgeService;
 import com.codeday.productivity.service.UserService;
+import com.codeday.productivity.service.UserStreamImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.codeday.productivity.exceptions.UserNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.ArrayList;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
 
 
 /**
@@ -37,16 +52,26 @@ public class UserController {
 
     private static final Logger LOGGER = LogManager.getLogger(UserController.class);
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final String CSV_VALUE = "text/csv";
+    private static final int MAX_SEARCH_RESULTS = 50;
+
     private final UserService service;
+    private final UserStreamImportService importService;
+    private final PurgeService purgeService;
 
     /**
      * Initializes a new instance of {@code UserController}.
      *
-     * @param service The UserService instance for handling business logic.
+     * @param service       The UserService instance for handling business logic.
+     * @param importService The UserStreamImportService instance for streaming imports.
+     * @param purgeService  The PurgeService instance for deleting the data of deactivated users.
      */
     @Autowired
-    public UserController(UserService service) {
+    public UserController(UserService service, UserStreamImportService importService, PurgeService purgeService) {
         this.service = service;
+        this.importService = importService;
+        this.purgeService = purgeService;
     }
 
     /**
@@ -61,6 +86,8 @@ public class UserController {
             User user = service.saveUser(createUserRequest);
             UserResponse userResponse = toUserResponse(user);
             return new ResponseEntity<>(userResponse, HttpStatus.CREATED);
+        } catch (HashingCapacityExceededException e) {
+            return handleHashingCapacityExceededException(e);
         } catch (IllegalArgumentException e) {
             LOGGER.error("Bad Request: {}", e.getMessage());
             return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
@@ -91,38 +118,25 @@ public class UserController {
 
     /**
      * Adds multiple new {@link User} entities to the database in a batch operation.
+     * <p>
+     * Every row is reported individually as created, duplicate or invalid, so one bad row
+     * does not fail the whole batch. The response is 201 Created if at least one user was
+     * created, and 200 OK with the same per-row results otherwise.
+     * </p>
      *
      * @param createUserRequests The list of {@link CreateUserRequest} objects to be added.
-     * @return A {@link ResponseEntity} containing either the UserResponses for each user added or an error message.
+     * @return A {@link ResponseEntity} containing either a {@link UserImportResult} for each row or an error message.
      */
     @PostMapping("/users/batch")
     public ResponseEntity<?> addUsers(@RequestBody List<CreateUserRequest> createUserRequests){
-        LOGGER.info("Attempting to add users in batch {}", createUserRequests);
+        LOGGER.info("Attempting to add {} users in batch", createUserRequests.size());
 
         try {
-            // Convert CreateUserRequest objects to User entities
-            List<User> users = createUserRequests.stream()
-                    .map(request -> {
-                        User user = new User();
-                        // Populate user fields using request
-                        user.setFirstName(request.getFirstName());
-                        user.setLastName(request.getLastName());
-                        user.setEmail(request.getEmail());
-                        user.setPassword(request.getPassword());
-                        // Add any other fields as needed
-                        return user;
-                    })
-                    .collect(Collectors.toList());
-
-            // Call the service method that handles duplicates and saves users
-            List<User> savedUsers = service.saveUsers(users);
-
-            // Convert saved User entities to UserResponse objects
-            List<UserResponse> userResponses = savedUsers.stream()
-                    .map(this::toUserResponse)
-                    .collect(Collectors.toList());
-
-            return new ResponseEntity<>(userResponses, HttpStatus.CREATED);
+            List<UserImportResult> results = service.importUsers(createUserRequests);
+            boolean anyCreated = results.stream().anyMatch(result -> result.getStatus() == UserImportResult.Status.CREATED);
+            return new ResponseEntity<>(results, anyCreated ? HttpStatus.CREATED : HttpStatus.OK);
+        } catch (HashingCapacityExceededException e) {
+            return handleHashingCapacityExceededException(e);
         } catch (IllegalArgumentException e) {
             LOGGER.error("Bad Request: {}", e.getMessage());
             return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
@@ -133,51 +147,117 @@ public class UserController {
     }
 
     /**
-     * Retrieves {@link User} entities based on provided first and/or last name.
-     * If no criteria are provided, returns all users.
+     * Imports users from a streamed NDJSON or CSV upload.
+     * <p>
+     * The upload is parsed incrementally and persisted in fixed-size chunks, so the payload is
+     * never held in memory as a whole. Per-row errors and a progress record per chunk are
+     * streamed back as NDJSON while the import runs, followed by a final summary record.
+     * CSV uploads must start with a header naming the firstName, lastName, email and password columns.
+     * </p>
+     *
+     * @param request  The HTTP request whose body contains the users to import.
+     * @param response The HTTP response that receives the NDJSON result stream.
+     * @throws IOException If reading the upload or writing the response fails.
+     */
+    @PostMapping(value = "/users/import", consumes = {NDJSON_VALUE, CSV_VALUE}, produces = NDJSON_VALUE)
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserStreamImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.valueOf(CSV_VALUE))
+                ? UserStreamImportService.Format.CSV
+                : UserStreamImportService.Format.NDJSON;
+        LOGGER.info("Starting streaming user import in {} format", format);
+
+        response.setContentType(NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            importService.importUsers(reader, format, response.getWriter());
+        } catch (HashingCapacityExceededException e) {
+            LOGGER.warn("Streaming user import stopped: {}", e.getMessage());
+            if (!response.isCommitted()) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()));
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+            }
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Bad Request: {}", e.getMessage());
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Retrieves {@link User} entities based on provided first and/or last name, one page at a time.
+     * If no criteria are provided, pages through all users.
+     * <p>
+     * Pages are keyset-paginated: pass the {@code nextCursor} of a page as {@code cursor} to
+     * fetch the next one. {@code sort} is either {@code id} or {@code name}
+     * (last name, first name, ID).
+     * </p>
      *
      * @param firstName The first name to search for (optional).
      * @param lastName The last name to search for (optional).
-     * @return A {@link ResponseEntity} containing either the users that match the criteria or an error message.
+     * @param sort The ordering to page through (optional, defaults to {@code id}).
+     * @param cursor The continuation token of the previous page (optional).
+     * @param limit The page size (optional, capped at the configured maximum).
+     * @return A {@link ResponseEntity} containing either a page of users that match the criteria or an error message.
      */
     @GetMapping("/users")
     public ResponseEntity<?> findAllUsers(
             @RequestParam(required = false) String firstName,
-            @RequestParam(required = false) String lastName
+            @RequestParam(required = false) String lastName,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
     ) {
-        LOGGER.info("Finding all users filtered by firstName: {}, lastName: {}", firstName, lastName);
-        List<User> users = new ArrayList<>();
+        LOGGER.info("Finding users filtered by firstName: {}, lastName: {}", firstName, lastName);
 
         if (firstName != null && lastName != null) {
             User user = service.getUserByFirstAndLastName(firstName, lastName);
-            if (user != null) {
-                return new ResponseEntity<>(List.of(user), HttpStatus.OK);
+            if (user == null) {
+                return new ResponseEntity<>("User doesn't exist", HttpStatus.NOT_FOUND);
             }
-        } else if (firstName != null) {
-            users = service.getUsersByFirstName(firstName);
-        } else if (lastName != null) {
-            users = service.getUsersByLastName(lastName);
-        } else {
-            return new ResponseEntity<>(service.getUsers(), HttpStatus.OK);
+            return new ResponseEntity<>(new CursorPage<>(List.of(toUserResponse(user)), null), HttpStatus.OK);
         }
 
-        if (users.isEmpty()) {
-            return new ResponseEntity<>("User doesn't exist", HttpStatus.NOT_FOUND);
-        } else {
-            return new ResponseEntity<>(users, HttpStatus.OK);
+        try {
+            UserService.PageOrder order = UserService.PageOrder.valueOf(sort.toUpperCase(Locale.ROOT));
+            CursorPage<UserResponse> page = service.getUsersPage(firstName, lastName, order, cursor, limit);
+            if (page.getItems().isEmpty() && cursor == null && (firstName != null || lastName != null)) {
+                return new ResponseEntity<>("User doesn't exist", HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Bad Request: {}", e.getMessage());
+            return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
         }
     }
 
     /**
-     * Retrieves a {@link User} entity by its ID.
+     * Searches users by first name, last name or email prefix for search-as-you-type.
+     *
+     * @param q The text typed so far; every word must prefix-match a name or email.
+     * @param limit The maximum number of results (optional, at most {@value #MAX_SEARCH_RESULTS}).
+     * @return A {@link ResponseEntity} containing the best matching users, best match first.
+     */
+    @GetMapping("/users/search")
+    public ResponseEntity<?> searchUsers(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1) {
+            return new ResponseEntity<>(Collections.singletonMap("error", "Limit must be at least 1"), HttpStatus.BAD_REQUEST);
+        }
+        List<UserSearchResult> results = service.searchUsers(q, Math.min(limit, MAX_SEARCH_RESULTS));
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves a {@link User} by its ID.
      *
      * @param id The ID of the user.
-     * @return The {@link User} entity with the specified ID.
+     * @return The {@link UserResponse} of the user with the specified ID.
      */
     @GetMapping("/users/{id}")
-    public User findUserById(@PathVariable int id) {
+    public UserResponse findUserById(@PathVariable int id) {
         LOGGER.info("Finding user by ID: {}", id);
-        return service.getUserById(id);
+        return service.getUserResponseById(id);
     }
 
     /**
@@ -185,13 +265,13 @@ public class UserController {
      *
      * @param id The ID of the user to be updated.
      * @param user The new {@link User} details.
-     * @return The updated {@link User} entity.
+     * @return The {@link UserResponse} of the updated user.
      */
     @PutMapping("/users/{id}")
-    public User updateUser(@PathVariable int id, @RequestBody User user) {
+    public UserResponse updateUser(@PathVariable int id, @RequestBody User user) {
         user.setId(id);
-        LOGGER.info("Updating user with ID: {} with data: {}", id, user);
-        return service.updateUser(user);
+        LOGGER.info("Updating user with ID: {}", id);
+        return toUserResponse(service.updateUser(user));
     }
 
     /**
@@ -206,6 +286,20 @@ public class UserController {
         return service.deactivateUser(id);
     }
 
+    /**
+     * Schedules the deletion of the goals, tasks and activities of a deactivated user.
+     * The deletion runs in the background; the user record itself is kept.
+     *
+     * @param id The ID of the deactivated user.
+     * @return A {@link ResponseEntity} with a 202 status once the purge is scheduled.
+     */
+    @PostMapping("/users/{id}/purge")
+    public ResponseEntity<Void> purgeUser(@PathVariable int id) {
+        LOGGER.info("Purging data of user with ID: {}", id);
+        purgeService.purgeUser(id);
+        return ResponseEntity.accepted().build();
+    }
+
     /**
      * Exception handler for {@link UserNotFoundException}.
      *
@@ -218,6 +312,18 @@ public class UserController {
         return ResponseEntity.status(404).body(ex.getMessage());
     }
 
+    /**
+     * Exception handler for {@link UserStillActiveException}.
+     *
+     * @param ex The caught exception.
+     * @return A {@link ResponseEntity} with a 409 status and the exception's message.
+     */
+    @ExceptionHandler(UserStillActiveException.class)
+    public ResponseEntity<String> handleUserStillActiveException(UserStillActiveException ex) {
+        LOGGER.error("User still active exception: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
     /**
      * Exception handler for {@link UserAlreadyExistsException}.
      *
@@ -230,4 +336,18 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
     }
 
-}
\ No newline at end of file
+    /**
+     * Exception handler for {@link HashingCapacityExceededException}.
+     *
+     * @param ex The caught exception.
+     * @return A {@link ResponseEntity} with a 503 status, a {@code Retry-After} header and the exception's message.
+     */
+    @ExceptionHandler(HashingCapacityExceededException.class)
+    public ResponseEntity<Object> handleHashingCapacityExceededException(HashingCapacityExceededException ex) {
+        LOGGER.warn("Password hashing capacity exceeded: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(Collections.singletonMap("error", ex.getMessage()));
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.codeday.productivity.controller;
+
+import com.codeday.productivity.entity.User;
+import com.codeday.productivity.exceptions.UserNotFoundException;
+import com.codeday.productivity.model.CursorPage;
+import com.codeday.productivity.model.TaskFilter;
+import com.codeday.productivity.model.TaskResponse;
+import com.codeday.productivity.service.TaskService;
+import com.codeday.productivity.service.UserService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Searches the tasks of all goals of a user.
+ *
+ * @author Nahom Alemu
+ */
+@RestController
+@RequestMapping("api/v1/users/{userId}/tasks")
+public class UserTaskController {
+    private static final Logger logger = LogManager.getLogger(UserTaskController.class);
+
+    private final TaskService taskService;
+    private final UserService userService;
+
+    @Autowired
+    public UserTaskController(TaskService taskService, UserService userService) {
+        this.taskService = taskService;
+        this.userService = userService;
+    }
+
+    /**
+     * Lists the tasks of a user's goals that match every supplied filter, one keyset-paginated
+     * page at a time, e.g. the open tasks starting this week. Date windows include their start
+     * and exclude their end.
+     *
+     * @param goalId      Only tasks of this goal (optional).
+     * @param isCompleted Only tasks with this completion status, {@code Y} or {@code N} (optional).
+     * @param startFrom   The inclusive lower bound of the start date (optional).
+     * @param startTo     The exclusive upper bound of the start date (optional).
+     * @param endFrom     The inclusive lower bound of the end date (optional).
+     * @param endTo       The exclusive upper bound of the end date (optional).
+     * @param title       Text the title must contain, ignoring case (optional).
+     * @param cursor      The continuation token of the previous page (optional).
+     * @param limit       The page size (optional, capped at the configured maximum).
+     * @return A page of tasks and the token of the next page.
+     */
+    @GetMapping
+    public CursorPage<TaskResponse> searchTasks(@PathVariable int userId,
+                                                @RequestParam(required = false) Integer goalId,
+                                                @RequestParam(required = false) String isCompleted,
+                                                @RequestParam(required = false) Instant startFrom,
+                                                @RequestParam(required = false) Instant startTo,
+                                                @RequestParam(required = false) Instant endFrom,
+                                                @RequestParam(required = false) Instant endTo,
+                                                @RequestParam(required = false) String title,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer limit) {
+        User user = userService.getUserById(userId);
+        TaskFilter filter = new TaskFilter(goalId, isCompleted, startFrom, startTo, endFrom, endTo,
+                title == null || title.isBlank() ? null : title.trim());
+        return taskService.filterTasks(user, filter, cursor, limit);
+    }
+
+    @ExceptionHandler(UserNotFoundException.class)
+    public ResponseEntity<String> handleUserNotFoundException(UserNotFoundException e) {
+        logger.error(e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+}
@@ -2,6 +2,10 @@ package com.codeday.productivity.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,15 +26,20 @@ import java.time.Instant;
  *
  */
 @Entity
-@Table(name = "ACTIVITY_TBL")
+@Table(name = "ACTIVITY_TBL", indexes = {
+        @Index(name = "idx_activity_user_start_date", columnList = "user_id, start_date, id"),
+        @Index(name = "idx_activity_user_complete_start_date", columnList = "user_id, is_complete, start_date, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Activity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activity_sequence")
-    @SequenceGenerator(name = "activity_sequence", sequenceName = "activity_sequence", allocationSize = 1)
+    @GeneratedValue(generator = "activity_sequence")
+    @GenericGenerator(name = "activity_sequence", type = PooledSequenceGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "activity_sequence")
+    })
     private Integer id;
 
     private String title;
@@ -68,6 +77,12 @@ public class Activity {
     @Column(name = "last_updated",columnDefinition = "TIMESTAMP")
     private Instant lastUpdated;
 
+    // Optimistic lock version, so concurrent starts, stops and edits cannot silently overwrite each other
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "goal_id", nullable = false)
     @JsonBackReference(value="goal-activity")
@@ -89,10 +104,10 @@ public class Activity {
 
     /**
      * This method is called before updating an object, to ensure 'lastUpdated' is set.
+     * The stop time is only set when the activity's timer is stopped.
      */
     @PreUpdate
     public void preUpdate() {
         this.lastUpdated = Instant.now();
-        this.stopTime = Instant.now();
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.codeday.productivity.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents how far an activity journal has been applied to the database. This entity is
+ * mapped to the "ACTIVITY_JOURNAL_CHECKPOINT" table, which holds one row per journal, keyed
+ * by the journal's ID, since every application instance keeps its own journal.
+ *
+ * <p>
+ * The row is only written with plain SQL by the journal projector, in the same transaction
+ * as the events it covers.
+ * </p>
+ * @author Nahom Alemu
+ * @version 1.0
+ *
+ */
+@Entity
+@Table(name = "ACTIVITY_JOURNAL_CHECKPOINT")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityJournalCheckpoint {
+
+    @Id
+    @Column(name = "journal_id", length = 36)
+    private String journalId;
+
+    /**
+     * The sequence number of the first journal event that has not been applied yet.
+     */
+    @Column(nullable = false)
+    private long position;
+}
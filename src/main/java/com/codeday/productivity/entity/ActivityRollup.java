@@ -0,0 +1,39 @@
+package com.codeday.productivity.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the precomputed activity totals of one user, activity type and day. This entity
+ * is mapped to the "ACTIVITY_ROLLUP" table in the database.
+ *
+ * <p>
+ * A stopped activity counts towards the UTC day its timer was started on; activities without
+ * a type count as {@code OTHER}. Rows are only written with plain SQL, as increments when
+ * activities change and in bulk by the backfill job.
+ * </p>
+ * @author Nahom Alemu
+ * @version 1.0
+ *
+ */
+@Entity
+@Table(name = "ACTIVITY_ROLLUP", indexes = {
+        // The generated primary key orders the embedded key's columns by name, starting with the day
+        @Index(name = "idx_activity_rollup_user_day_type", columnList = "user_id, rollup_day, activity_type")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityRollup {
+
+    @EmbeddedId
+    private ActivityRollupId id;
+
+    @Column(name = "total_duration", nullable = false)
+    private long totalDuration; // in seconds
+
+    @Column(name = "activity_count", nullable = false)
+    private int activityCount;
+}
@@ -0,0 +1,32 @@
+package com.codeday.productivity.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * The key of an {@link ActivityRollup}: a user, an activity type and a day.
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityRollupId implements Serializable {
+
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "activity_type")
+    private String type;
+
+    @Column(name = "rollup_day")
+    private LocalDate day;
+}
@@ -3,6 +3,10 @@ package com.codeday.productivity.entity;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,15 +17,21 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "GOAL_TBL")
+@Table(name = "GOAL_TBL", indexes = {
+        @Index(name = "idx_goal_user_start_date", columnList = "user_id, startDate, id"),
+        @Index(name = "idx_goal_user_due_date", columnList = "user_id, dueDate, id"),
+        @Index(name = "idx_goal_user_end_date", columnList = "user_id, endDate, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Goal {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "goal_sequence")
-    @SequenceGenerator(name = "goal_sequence", sequenceName = "goal_sequence", allocationSize = 1)
+    @GeneratedValue(generator = "goal_sequence")
+    @GenericGenerator(name = "goal_sequence", type = PooledSequenceGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "goal_sequence")
+    })
     private Integer id;
 
     private String title;
@@ -40,17 +50,44 @@ public class Goal {
     @Column(columnDefinition = "VARCHAR(1) DEFAULT 'N'")
     private String isComplete;
 
+    // Derived from the task counters by the same delta updates, so the entity never writes it
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
     private int progress;
 
     @Column(columnDefinition = "TIMESTAMP")
     private Instant lastUpdated;
 
+    // Optimistic lock version; delta updates of accumulated totals deliberately leave it unchanged
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    // Denormalized totals, maintained by delta updates in SQL and never written from the entity
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int taskCount;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int completedTaskCount;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long totalTaskTime;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long totalActivityDuration;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     @JsonBackReference(value="user-goal")
     private User user;
 
-    @OneToMany(mappedBy = "goal", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Tasks are deleted in bulk by PurgeService rather than cascaded one by one
+    @OneToMany(mappedBy = "goal")
     @JsonManagedReference(value="goal-task")
     private List<Task> tasks = new ArrayList<>();
 
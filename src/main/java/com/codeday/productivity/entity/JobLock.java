@@ -0,0 +1,42 @@
+package com.codeday.productivity.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a lease on a scheduled job shared by all application instances. This entity is
+ * mapped to the "JOB_LOCK" table, which holds one row per job, keyed by the job's name.
+ *
+ * <p>
+ * The row is only written with plain SQL by {@code JobLockService}. The lease time is kept in
+ * epoch milliseconds, so instances in different time zones compare the same values.
+ * </p>
+ * @author Nahom Alemu
+ * @version 1.0
+ *
+ */
+@Entity
+@Table(name = "JOB_LOCK")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobLock {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    /**
+     * The time, in epoch milliseconds, until which the job belongs to its holder.
+     */
+    @Column(nullable = false)
+    private long lockedUntil;
+
+    /**
+     * The instance that last took the lease.
+     */
+    @Column(length = 36)
+    private String lockedBy;
+}
@@ -2,6 +2,10 @@ package com.codeday.productivity.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,15 +13,19 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
-@Table(name = "TASK_TBL")
+@Table(name = "TASK_TBL", indexes = {
+        @Index(name = "idx_task_goal_status", columnList = "goal_id, isCompleted, id, startDate")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Task {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_sequence")
-    @SequenceGenerator(name = "task_sequence", sequenceName = "task_sequence", allocationSize = 1)
+    @GeneratedValue(generator = "task_sequence")
+    @GenericGenerator(name = "task_sequence", type = PooledSequenceGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "task_sequence")
+    })
     private Integer id;
 
     private String title;
@@ -38,9 +46,16 @@ public class Task {
     @Column(columnDefinition = "TIMESTAMP")
     private Instant lastUpdated;
 
-    @Column
+    // Only ever changed by delta updates in SQL, so saving a loaded task cannot overwrite recorded time
+    @Column(updatable = false)
     private long timeSpent; // Assuming this represents time in seconds or milliseconds
 
+    // Optimistic lock version; delta updates of accumulated totals deliberately leave it unchanged
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "goal_id", nullable = false)
     @JsonBackReference(value="goal-task")
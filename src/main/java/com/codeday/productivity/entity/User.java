@@ -3,6 +3,9 @@ package com.codeday.productivity.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -27,7 +30,12 @@ import java.util.List;
  *
  */
 @Entity
-@Table(name = "USER_TBL")
+@Table(name = "USER_TBL", indexes = {
+        @Index(name = "idx_user_name", columnList = "last_name, first_name, id"),
+        @Index(name = "idx_user_first_name", columnList = "first_name, last_name, id"),
+        @Index(name = "idx_user_first_name_id", columnList = "first_name, id"),
+        @Index(name = "idx_user_last_name_id", columnList = "last_name, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -37,8 +45,10 @@ public class User {
      * The unique identifier for a user. This field is auto-generated.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_sequence")
-    @SequenceGenerator(name = "user_sequence", sequenceName = "user_sequence", allocationSize = 1)
+    @GeneratedValue(generator = "user_sequence")
+    @GenericGenerator(name = "user_sequence", type = PooledSequenceGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "user_sequence")
+    })
     private Integer id;
 
     @Column(name = "first_name", nullable = false)
@@ -0,0 +1,25 @@
+package com.codeday.productivity.exceptions;
+
+/**
+ * Custom exception class to indicate that an activity is not running.
+ * This exception should be thrown when attempting to stop an activity whose timer
+ * was never started or has already been stopped.
+ *
+ * <p>
+ * Extends the {@link RuntimeException} class, enabling it to be an unchecked exception.
+ * </p>
+ * @author Nahom Alemu
+ * @version 1.0
+ * @see RuntimeException
+ */
+public class ActivityNotRunningException extends RuntimeException {
+
+    /**
+     * Constructs a new ActivityNotRunningException with the specified detail message.
+     *
+     * @param message The detail message, saved for later retrieval by the {@link Throwable#getMessage()} method.
+     */
+    public ActivityNotRunningException(String message) {
+        super(message);
+    }
+}
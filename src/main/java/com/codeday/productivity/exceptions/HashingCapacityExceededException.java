@@ -0,0 +1,33 @@
+package com.codeday.productivity.exceptions;
+
+/**
+ * Custom exception class to indicate that the password hashing queue is full.
+ * This exception should be thrown when a password cannot be accepted for hashing
+ * because the bounded hashing queue has no free capacity; callers should retry later.
+ *
+ * <p>
+ * Extends the {@link RuntimeException} class, enabling it to be an unchecked exception.
+ * </p>
+ * @author Nahom Alemu
+ * @version 1.0
+ * @see RuntimeException
+ */
+public class HashingCapacityExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a new HashingCapacityExceededException with the specified detail message.
+     *
+     * @param message           The detail message, saved for later retrieval by the {@link Throwable#getMessage()} method.
+     * @param retryAfterSeconds The number of seconds the client should wait before retrying.
+     */
+    public HashingCapacityExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,25 @@
+package com.codeday.productivity.exceptions;
+
+/**
+ * Custom exception class to indicate that an update was based on an outdated version of a
+ * record. This exception should be thrown when a conditional update finds that the record
+ * was changed by another writer since the client read it.
+ *
+ * <p>
+ * Extends the {@link RuntimeException} class, enabling it to be an unchecked exception.
+ * </p>
+ * @author Nahom Alemu
+ * @version 1.0
+ * @see RuntimeException
+ */
+public class UpdateConflictException extends RuntimeException {
+
+    /**
+     * Constructs a new UpdateConflictException with the specified detail message.
+     *
+     * @param message The detail message, saved for later retrieval by the {@link Throwable#getMessage()} method.
+     */
+    public UpdateConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,25 @@
+package com.codeday.productivity.exceptions;
+
+/**
+ * Custom exception class to indicate that an operation requires a deactivated user.
+ * This exception should be thrown when attempting to purge the data of a user
+ * who has not been deactivated.
+ *
+ * <p>
+ * Extends the {@link RuntimeException} class, enabling it to be an unchecked exception.
+ * </p>
+ * @author Nahom Alemu
+ * @version 1.0
+ * @see RuntimeException
+ */
+public class UserStillActiveException extends RuntimeException {
+
+    /**
+     * Constructs a new UserStillActiveException with the specified detail message.
+     *
+     * @param message The detail message, saved for later retrieval by the {@link Throwable#getMessage()} method.
+     */
+    public UserStillActiveException(String message) {
+        super(message);
+    }
+}
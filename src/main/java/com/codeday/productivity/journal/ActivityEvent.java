@@ -0,0 +1,72 @@
+package com.codeday.productivity.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * ActivityEvent is one entry of the activity journal: something that happened to an activity
+ * and when.
+ *
+ * <p>
+ * Started and stopped events carry the timer state the projector writes to
+ * {@code ACTIVITY_TBL}; created and updated events are kept for the audit trail only, since
+ * those changes are written to the database directly. The duration is only set on stopped
+ * events, in seconds.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityEvent {
+
+    /**
+     * The kinds of activity events, with the code each is stored under.
+     */
+    public enum Type {
+        CREATED(1),
+        STARTED(2),
+        STOPPED(3),
+        UPDATED(4);
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        /**
+         * @return The code the type is stored under in the journal.
+         */
+        public byte getCode() {
+            return code;
+        }
+
+        /**
+         * Looks up a type by its stored code.
+         *
+         * @param code The stored code.
+         * @return The matching type, or null if no type has that code.
+         */
+        public static Type fromCode(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    private Type type;
+    private Integer activityId;
+    private Integer userId;
+    private Integer goalId;
+    private Instant time;
+    private long duration;
+}
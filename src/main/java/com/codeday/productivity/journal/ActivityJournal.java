@@ -0,0 +1,398 @@
+package com.codeday.productivity.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of {@link ActivityEvent}s stored in memory-mapped segment files.
+ *
+ * <p>
+ * Every event is a fixed-size record with a CRC32 checksum, addressed by its sequence number.
+ * Segment files hold a fixed number of records and are named after the sequence number of
+ * their first record, so a sequence number maps directly to a file and an offset. Appending
+ * only copies the record into the mapped segment; a background thread forces the segment to
+ * disk and wakes every appender whose record the force covered. Appenders arriving while a
+ * force is running share the next force, so one {@code fsync} acknowledges many events; an
+ * optional group commit window delays each force to gather more events on slow disks.
+ * </p>
+ *
+ * <p>
+ * On open, the last segment is scanned up to the first record that is empty or fails its
+ * checksum, which is where appending resumes; a record torn by a crash is overwritten, and
+ * whatever follows it is cleared so that records older than the tear can never be read as new
+ * ones once appending has rewritten the slots before them. Only
+ * durable records are ever handed to readers. Segments are kept as the audit trail of the
+ * activities.
+ * </p>
+ *
+ * <p>
+ * Every journal directory gets a random ID on first open, kept in {@code journal.id}, so that
+ * progress recorded against the journal elsewhere can tell it apart from the journals of other
+ * application instances and from a replacement of a lost directory.
+ * </p>
+ *
+ * <p>
+ * Once forcing a segment fails the journal can no longer tell which events reached the disk, so
+ * it stops: the pending and every later append and wait fail with the original error.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+public class ActivityJournal implements AutoCloseable {
+
+    // CRC32, then type, three padding bytes, activity, user and goal IDs, time and duration
+    static final int RECORD_SIZE = 40;
+    private static final int PAYLOAD_OFFSET = 4;
+    private static final int PAYLOAD_SIZE = RECORD_SIZE - PAYLOAD_OFFSET;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ID_FILE = "journal.id";
+
+    private final Path directory;
+    private final String id;
+    private final int segmentRecords;
+    private final long groupCommitNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final Thread syncer;
+
+    // Guarded by lock
+    private MappedByteBuffer writeSegment;
+    private long writeSegmentIndex;
+    private long nextSequence;
+    private long durableSequence;
+    private boolean closed;
+    private Throwable failure;
+
+    // Only used by readers, one at a time
+    private MappedByteBuffer readSegment;
+    private long readSegmentIndex = -1;
+
+    /**
+     * Opens the journal in a directory, creating it if needed, and starts the sync thread.
+     *
+     * @param directory         The directory the segment files are kept in.
+     * @param segmentRecords    The number of records per segment file.
+     * @param groupCommitWindow How long the sync thread waits for more events before a force.
+     * @throws UncheckedIOException If the directory or the last segment cannot be opened.
+     */
+    public ActivityJournal(Path directory, int segmentRecords, Duration groupCommitWindow) {
+        if (segmentRecords < 1 || groupCommitWindow.isNegative()) {
+            throw new IllegalArgumentException("Invalid activity journal settings");
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.groupCommitNanos = groupCommitWindow.toNanos();
+        try {
+            Files.createDirectories(directory);
+            this.id = readOrCreateId();
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the activity journal in " + directory, e);
+        }
+        this.syncer = new Thread(this::syncLoop, "activity-journal-sync");
+        this.syncer.setDaemon(true);
+        this.syncer.start();
+    }
+
+    private String readOrCreateId() throws IOException {
+        Path file = directory.resolve(ID_FILE);
+        if (!Files.exists(file)) {
+            Files.writeString(file, UUID.randomUUID().toString(), StandardOpenOption.CREATE_NEW);
+        }
+        return Files.readString(file).trim();
+    }
+
+    private void recover() throws IOException {
+        long lastIndex = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            lastIndex = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .mapToLong(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())) / segmentRecords)
+                    .max()
+                    .orElse(0);
+        }
+        writeSegmentIndex = lastIndex;
+        writeSegment = map(lastIndex, FileChannel.MapMode.READ_WRITE);
+        int slot = 0;
+        while (slot < segmentRecords && decode(writeSegment, slot) != null) {
+            slot++;
+        }
+        clearTail(slot);
+        nextSequence = lastIndex * segmentRecords + slot;
+        durableSequence = nextSequence;
+    }
+
+    private void clearTail(int fromSlot) {
+        byte[] empty = new byte[RECORD_SIZE];
+        boolean cleared = false;
+        for (int slot = fromSlot; slot < segmentRecords; slot++) {
+            if (!isEmpty(writeSegment, slot)) {
+                writeSegment.put(slot * RECORD_SIZE, empty);
+                cleared = true;
+            }
+        }
+        if (cleared) {
+            writeSegment.force();
+        }
+    }
+
+    private static boolean isEmpty(ByteBuffer segment, int slot) {
+        for (int offset = slot * RECORD_SIZE; offset < (slot + 1) * RECORD_SIZE; offset += Long.BYTES) {
+            if (segment.getLong(offset) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends an event. The event is not durable until {@link #awaitDurable(long)} returns.
+     *
+     * @param event The event to append.
+     * @return The sequence number of the event.
+     * @throws IllegalStateException If the journal is closed or failed to write to disk.
+     */
+    public long append(ActivityEvent event) {
+        byte[] record = encode(event);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The activity journal is closed");
+            }
+            checkFailure();
+            long segmentIndex = nextSequence / segmentRecords;
+            if (segmentIndex != writeSegmentIndex) {
+                roll(segmentIndex);
+            }
+            writeSegment.put((int) (nextSequence % segmentRecords) * RECORD_SIZE, record);
+            long sequence = nextSequence++;
+            appended.signal();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until an appended event has been forced to disk.
+     *
+     * @param sequence The sequence number returned by {@link #append(ActivityEvent)}.
+     * @throws IllegalStateException If the journal was closed or failed to write to disk before the
+     *                               event became durable.
+     */
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence <= sequence) {
+                checkFailure();
+                if (closed && !syncer.isAlive()) {
+                    throw new IllegalStateException("The activity journal was closed before the event was written");
+                }
+                synced.await(100, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing to the activity journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads durable events in sequence order.
+     *
+     * @param fromSequence The sequence number of the first event to read.
+     * @param max          The maximum number of events to read.
+     * @return The events, possibly fewer than asked for; empty if no durable event follows.
+     */
+    public synchronized List<ActivityEvent> read(long fromSequence, int max) {
+        long end = Math.min(durableSequence(), fromSequence + max);
+        List<ActivityEvent> events = new ArrayList<>((int) Math.max(0, end - fromSequence));
+        for (long sequence = fromSequence; sequence < end; sequence++) {
+            long segmentIndex = sequence / segmentRecords;
+            if (segmentIndex != readSegmentIndex) {
+                readSegment = mapQuietly(segmentIndex, FileChannel.MapMode.READ_ONLY);
+                readSegmentIndex = segmentIndex;
+            }
+            ActivityEvent event = decode(readSegment, (int) (sequence % segmentRecords));
+            if (event == null) {
+                throw new IllegalStateException("Corrupt activity journal record " + sequence);
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * @return The ID of this journal, which stays the same as long as its directory does.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return The sequence number following the last durable event.
+     */
+    public long durableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("The activity journal failed to write to disk", failure);
+        }
+    }
+
+    private void syncLoop() {
+        lock.lock();
+        try {
+            while (true) {
+                while (durableSequence == nextSequence && !closed) {
+                    appended.await();
+                }
+                if (durableSequence == nextSequence) {
+                    return;
+                }
+                if (groupCommitNanos > 0 && !closed) {
+                    lock.unlock();
+                    try {
+                        LockSupport.parkNanos(groupCommitNanos);
+                    } finally {
+                        lock.lock();
+                    }
+                }
+                long target = nextSequence;
+                MappedByteBuffer segment = writeSegment;
+                // Appends continue into the segment while it is forced; they join the next force
+                Throwable error = null;
+                lock.unlock();
+                try {
+                    segment.force();
+                } catch (RuntimeException | Error e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+                if (error != null) {
+                    failure = error;
+                    return;
+                }
+                durableSequence = Math.max(durableSequence, target);
+                synced.signalAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synced.signalAll();
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held; the full segment is forced before appending to the next one
+    private void roll(long segmentIndex) {
+        try {
+            writeSegment.force();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        }
+        durableSequence = nextSequence;
+        synced.signalAll();
+        writeSegment = mapQuietly(segmentIndex, FileChannel.MapMode.READ_WRITE);
+        writeSegmentIndex = segmentIndex;
+    }
+
+    private MappedByteBuffer mapQuietly(long segmentIndex, FileChannel.MapMode mode) {
+        try {
+            return map(segmentIndex, mode);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map activity journal segment " + segmentIndex, e);
+        }
+    }
+
+    // The mapping stays valid after the channel is closed
+    private MappedByteBuffer map(long segmentIndex, FileChannel.MapMode mode) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", segmentIndex * segmentRecords, SEGMENT_SUFFIX));
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            return channel.map(mode, 0, (long) segmentRecords * RECORD_SIZE);
+        }
+    }
+
+    private static byte[] encode(ActivityEvent event) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.position(PAYLOAD_OFFSET);
+        record.put(event.getType().getCode()).put(new byte[3])
+                .putInt(event.getActivityId())
+                .putInt(event.getUserId())
+                .putInt(event.getGoalId())
+                .putLong(event.getTime().getEpochSecond())
+                .putInt(event.getTime().getNano())
+                .putLong(event.getDuration());
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), PAYLOAD_OFFSET, PAYLOAD_SIZE);
+        record.putInt(0, (int) crc.getValue());
+        return record.array();
+    }
+
+    // Returns null for an empty slot or a record that fails its checksum
+    private static ActivityEvent decode(ByteBuffer segment, int slot) {
+        byte[] record = new byte[RECORD_SIZE];
+        segment.get(slot * RECORD_SIZE, record);
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        ActivityEvent.Type type = ActivityEvent.Type.fromCode(buffer.get(PAYLOAD_OFFSET));
+        CRC32 crc = new CRC32();
+        crc.update(record, PAYLOAD_OFFSET, PAYLOAD_SIZE);
+        if (type == null || buffer.getInt(0) != (int) crc.getValue()) {
+            return null;
+        }
+        buffer.position(PAYLOAD_OFFSET + 4);
+        int activityId = buffer.getInt();
+        int userId = buffer.getInt();
+        int goalId = buffer.getInt();
+        Instant time = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        return new ActivityEvent(type, activityId, userId, goalId, time, buffer.getLong());
+    }
+
+    /**
+     * Stops accepting events, forces everything appended so far and stops the sync thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        syncer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
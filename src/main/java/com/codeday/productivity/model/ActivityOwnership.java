@@ -0,0 +1,20 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ActivityOwnership carries the IDs of the user and the goal an activity belongs to, read
+ * without loading the activity itself.
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityOwnership {
+    private Integer userId;
+    private Integer goalId;
+}
@@ -0,0 +1,53 @@
+package com.codeday.productivity.model;
+
+import com.codeday.productivity.entity.Activity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * ActivityResponse is a data transfer object (DTO) that represents the response
+ * structure for an activity entity.
+ *
+ * <p>
+ * It carries the activity's own columns and the IDs of its goal and user. Read queries build
+ * it directly with a constructor expression that selects only these columns.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityResponse {
+    private Integer id;
+    private String title;
+    private String description;
+    private String type;
+    private Instant startDate;
+    private Instant endDate;
+    private Instant startTime;
+    private Instant stopTime;
+    private long duration;
+    private String isComplete;
+    private Instant lastUpdated;
+    private Integer goalId;
+    private Integer userId;
+
+    /**
+     * Converts an {@link Activity} entity to an {@link ActivityResponse}.
+     *
+     * @param activity The Activity entity.
+     * @return The ActivityResponse.
+     */
+    public static ActivityResponse from(Activity activity) {
+        return new ActivityResponse(activity.getId(), activity.getTitle(), activity.getDescription(), activity.getType(),
+                activity.getStartDate(), activity.getEndDate(), activity.getStartTime(), activity.getStopTime(),
+                activity.getDuration(), activity.getIsComplete(), activity.getLastUpdated(),
+                activity.getGoal() == null ? null : activity.getGoal().getId(),
+                activity.getUser() == null ? null : activity.getUser().getId());
+    }
+}
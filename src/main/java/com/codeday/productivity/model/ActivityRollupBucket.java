@@ -0,0 +1,29 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * ActivityRollupBucket is a data transfer object (DTO) that holds the activity totals of one
+ * activity type over one day, week or month.
+ *
+ * <p>
+ * {@code start} is the first day of the bucket: the day itself, the Monday of the week or the
+ * first day of the month. The total duration is in seconds.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityRollupBucket {
+    private LocalDate start;
+    private String type;
+    private long totalDuration;
+    private int activityCount;
+}
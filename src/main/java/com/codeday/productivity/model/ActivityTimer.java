@@ -0,0 +1,31 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * ActivityTimer is a data transfer object (DTO) that represents the timer of an activity, as
+ * kept in memory while the activity runs and as returned when it is started or stopped.
+ *
+ * <p>
+ * A running timer has no stop time and a duration of zero; a stopped timer carries the stop
+ * time and the duration in seconds measured from its start.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityTimer {
+    private Integer activityId;
+    private Integer userId;
+    private Integer goalId;
+    private Instant startTime;
+    private Instant stopTime;
+    private long duration;
+}
@@ -0,0 +1,29 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * CursorPage is a data transfer object (DTO) that holds one page of a keyset-paginated
+ * listing.
+ *
+ * <p>
+ * {@code nextCursor} is an opaque token to pass back as the {@code cursor} parameter to fetch
+ * the following page; it is {@code null} on the last page. No total count is returned, so
+ * paging never issues a {@code COUNT(*)} query.
+ * </p>
+ *
+ * @param <T> The type of the items in the page.
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+}
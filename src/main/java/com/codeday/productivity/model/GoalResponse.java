@@ -0,0 +1,49 @@
+package com.codeday.productivity.model;
+
+import com.codeday.productivity.entity.Goal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * GoalResponse is a data transfer object (DTO) that represents the response
+ * structure for a goal entity.
+ *
+ * <p>
+ * It carries the goal's own columns and the ID of its owner, but none of its tasks or
+ * activities, so returning it never walks the goal's collections. Read queries build it
+ * directly with a constructor expression that selects only these columns.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GoalResponse {
+    private Integer id;
+    private String title;
+    private String description;
+    private Instant startDate;
+    private Instant endDate;
+    private Instant dueDate;
+    private String isComplete;
+    private int progress;
+    private Instant lastUpdated;
+    private Integer userId;
+
+    /**
+     * Converts a {@link Goal} entity to a {@link GoalResponse}.
+     *
+     * @param goal The Goal entity.
+     * @return The GoalResponse.
+     */
+    public static GoalResponse from(Goal goal) {
+        return new GoalResponse(goal.getId(), goal.getTitle(), goal.getDescription(), goal.getStartDate(),
+                goal.getEndDate(), goal.getDueDate(), goal.getIsComplete(), goal.getProgress(), goal.getLastUpdated(),
+                goal.getUser() == null ? null : goal.getUser().getId());
+    }
+}
@@ -0,0 +1,31 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * GoalSummary is a data transfer object (DTO) that represents the card shown for a goal:
+ * the goal itself plus the totals of its tasks and activities.
+ *
+ * <p>
+ * It is read from the counters maintained on the goal row, so showing a user's goal cards
+ * never touches the goals' tasks or activities.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GoalSummary {
+    private Integer id;
+    private String title;
+    private String isComplete;
+    private int progress;
+    private int taskCount;
+    private int completedTaskCount;
+    private long totalTaskTime;
+    private long totalActivityDuration;
+}
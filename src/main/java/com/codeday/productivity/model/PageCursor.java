@@ -0,0 +1,85 @@
+package com.codeday.productivity.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * PageCursor encodes and decodes the opaque continuation tokens used by keyset-paginated
+ * endpoints.
+ *
+ * <p>
+ * A token carries the sort key of the last row of a page, plus a leading marker naming the
+ * ordering it was produced for, so a token can only be replayed against the ordering that
+ * issued it. Tokens are URL-safe Base64 and are not meant to be parsed by clients.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+public final class PageCursor {
+
+    private PageCursor() {
+    }
+
+    /**
+     * Encodes the given ordering marker and key values into an opaque token.
+     *
+     * @param ordering The name of the ordering the key values belong to.
+     * @param values   The key values of the last row of the page; {@code null} values are allowed.
+     * @return The encoded token.
+     */
+    public static String encode(String ordering, Object... values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(ordering);
+            out.writeByte(values.length);
+            for (Object value : values) {
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    out.writeUTF(value.toString());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode(String, Object...)}.
+     *
+     * @param token    The token received from the client.
+     * @param ordering The ordering the caller is about to page through.
+     * @param size     The number of key values the ordering expects.
+     * @return The key values, in the order they were encoded; entries may be {@code null}.
+     * @throws IllegalArgumentException If the token is malformed or was issued for another ordering.
+     */
+    public static List<String> decode(String token, String ordering, int size) {
+        String tokenOrdering;
+        List<String> values;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            tokenOrdering = in.readUTF();
+            int count = in.readUnsignedByte();
+            values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(in.readBoolean() ? in.readUTF() : null);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        if (!ordering.equals(tokenOrdering)) {
+            throw new IllegalArgumentException("Cursor does not match the requested ordering");
+        }
+        if (values.size() != size) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return values;
+    }
+}
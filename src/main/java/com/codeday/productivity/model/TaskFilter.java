@@ -0,0 +1,32 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * TaskFilter is a data transfer object (DTO) that holds the optional criteria of a task
+ * search across all goals of a user.
+ *
+ * <p>
+ * Every field is optional; a {@code null} field places no restriction on the results. Date
+ * windows are half-open, including the lower bound and excluding the upper bound.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskFilter {
+    private Integer goalId;
+    private String isCompleted;
+    private Instant startFrom;
+    private Instant startTo;
+    private Instant endFrom;
+    private Instant endTo;
+    private String title;
+}
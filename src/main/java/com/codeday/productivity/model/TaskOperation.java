@@ -0,0 +1,49 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * TaskOperation is a data transfer object (DTO) that represents a single operation of a
+ * bulk task request.
+ *
+ * <p>
+ * {@code CREATE} uses the task fields and requires a title. {@code UPDATE} requires a
+ * {@code taskId} and overwrites the task fields that are present. {@code COMPLETE} requires a
+ * {@code taskId} and sets the completion status from {@code completed}, which defaults to
+ * {@code true}. {@code DELETE} only requires a {@code taskId}. {@code UPDATE}, {@code COMPLETE}
+ * and {@code DELETE} may carry the {@code version} of the task the client last read, in which
+ * case they are only applied if the task has not changed since.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskOperation {
+
+    /**
+     * Kind of change applied by an operation.
+     */
+    public enum Type {
+        CREATE,
+        UPDATE,
+        COMPLETE,
+        DELETE
+    }
+
+    private Type type;
+    private Integer taskId;
+    private String title;
+    private String description;
+    private Instant startDate;
+    private Instant endDate;
+    private Integer progress;
+    private Boolean completed;
+    private Long version;
+}
@@ -0,0 +1,55 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TaskOperationResult is a data transfer object (DTO) that reports the outcome of a
+ * single operation of a bulk task request.
+ *
+ * <p>
+ * Every operation produces exactly one result, in the same order as the request, so
+ * clients can match outcomes back to the operations they sent.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskOperationResult {
+
+    /**
+     * Outcome of a single operation.
+     */
+    public enum Status {
+        OK,
+        NOT_FOUND,
+        CONFLICT,
+        INVALID
+    }
+
+    private int index;
+    private TaskOperation.Type type;
+    private Status status;
+    private Integer taskId;
+    private String message;
+
+    public static TaskOperationResult ok(int index, TaskOperation.Type type, Integer taskId) {
+        return new TaskOperationResult(index, type, Status.OK, taskId, null);
+    }
+
+    public static TaskOperationResult notFound(int index, TaskOperation.Type type, Integer taskId) {
+        return new TaskOperationResult(index, type, Status.NOT_FOUND, taskId, "Task " + taskId + " not found in this goal.");
+    }
+
+    public static TaskOperationResult conflict(int index, TaskOperation.Type type, Integer taskId) {
+        return new TaskOperationResult(index, type, Status.CONFLICT, taskId, "Task " + taskId + " was changed by another request.");
+    }
+
+    public static TaskOperationResult invalid(int index, TaskOperation.Type type, Integer taskId, String message) {
+        return new TaskOperationResult(index, type, Status.INVALID, taskId, message);
+    }
+}
@@ -0,0 +1,50 @@
+package com.codeday.productivity.model;
+
+import com.codeday.productivity.entity.Task;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * TaskResponse is a data transfer object (DTO) that represents the response
+ * structure for a task entity.
+ *
+ * <p>
+ * It carries the task's own columns, the ID of its goal and the version to send back with
+ * a conditional update. Read queries build it directly with a constructor expression that
+ * selects only these columns.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskResponse {
+    private Integer id;
+    private String title;
+    private String description;
+    private Instant startDate;
+    private Instant endDate;
+    private String isCompleted;
+    private int progress;
+    private long timeSpent;
+    private Instant lastUpdated;
+    private Integer goalId;
+    private long version;
+
+    /**
+     * Converts a {@link Task} entity to a {@link TaskResponse}.
+     *
+     * @param task The Task entity.
+     * @return The TaskResponse.
+     */
+    public static TaskResponse from(Task task) {
+        return new TaskResponse(task.getId(), task.getTitle(), task.getDescription(), task.getStartDate(),
+                task.getEndDate(), task.getIsCompleted(), task.getProgress(), task.getTimeSpent(), task.getLastUpdated(),
+                task.getGoal() == null ? null : task.getGoal().getId(), task.getVersion());
+    }
+}
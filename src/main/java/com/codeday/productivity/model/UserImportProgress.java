@@ -0,0 +1,29 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * UserImportProgress is a data transfer object (DTO) streamed back to the client while a
+ * streaming user import runs.
+ *
+ * <p>
+ * A {@code progress} record is written after every persisted chunk, and a single
+ * {@code summary} record is written once the whole input has been consumed. If the import
+ * has to stop early, an {@code aborted} record reports what was processed up to that point.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserImportProgress {
+    private String type;
+    private long processed;
+    private long created;
+    private long duplicates;
+    private long invalid;
+}
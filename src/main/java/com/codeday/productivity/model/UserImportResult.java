@@ -0,0 +1,50 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * UserImportResult is a data transfer object (DTO) that reports the outcome of a
+ * single row of a bulk user import.
+ *
+ * <p>
+ * Every row of the incoming payload produces exactly one result, in the same order
+ * as the request, so clients can match outcomes back to the rows they sent.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserImportResult {
+
+    /**
+     * Outcome of importing a single row.
+     */
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    private int row;
+    private String email;
+    private Status status;
+    private Integer id;
+    private String message;
+
+    public static UserImportResult created(int row, String email, Integer id) {
+        return new UserImportResult(row, email, Status.CREATED, id, null);
+    }
+
+    public static UserImportResult duplicate(int row, String email) {
+        return new UserImportResult(row, email, Status.DUPLICATE, null, "User with email " + email + " already exists.");
+    }
+
+    public static UserImportResult invalid(int row, String email, String message) {
+        return new UserImportResult(row, email, Status.INVALID, null, message);
+    }
+}
@@ -1,6 +1,8 @@
 package com.codeday.productivity.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 /**
@@ -18,6 +20,8 @@ import java.time.Instant;
  * @version 1.0
  */
 @Data
+@AllArgsConstructor
+@NoArgsConstructor
 public class UserResponse {
     private Integer id;
     private String firstName;
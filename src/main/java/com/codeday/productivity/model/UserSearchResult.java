@@ -0,0 +1,25 @@
+package com.codeday.productivity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * UserSearchResult is a data transfer object (DTO) returned by the user typeahead search.
+ *
+ * <p>
+ * It carries only the fields the search indexes and displays: the user's ID, names and email.
+ * </p>
+ *
+ * @author Nahom Alemu
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSearchResult {
+    private Integer id;
+    private String firstName;
+    private String lastName;
+    private String email;
+}
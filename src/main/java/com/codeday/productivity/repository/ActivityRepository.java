@@ -3,8 +3,13 @@ package com.codeday.productivity.repository;
 import com.codeday.productivity.entity.Activity;
 import com.codeday.productivity.entity.Goal;
 import com.codeday.productivity.entity.User;
+import com.codeday.productivity.model.ActivityOwnership;
+import com.codeday.productivity.model.ActivityResponse;
+import com.codeday.productivity.model.ActivityTimer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
@@ -23,7 +28,42 @@ import java.util.Optional;
  *
  */
 @Repository
-public interface ActivityRepository extends JpaRepository<Activity, Integer> {
+public interface ActivityRepository extends JpaRepository<Activity, Integer>, ActivityRepositoryCustom {
+
+    /**
+     * Select clause building an {@link ActivityResponse} from only the columns it needs.
+     */
+    String ACTIVITY_RESPONSE = "SELECT new com.codeday.productivity.model.ActivityResponse(a.id, a.title, a.description, "
+            + "a.type, a.startDate, a.endDate, a.startTime, a.stopTime, a.duration, a.isComplete, a.lastUpdated, "
+            + "a.goal.id, a.user.id) FROM Activity a ";
+
+    /**
+     * Find the IDs of the user and the goal an activity belongs to, without loading the activity.
+     *
+     * @param id The ID of the activity.
+     * @return The activity's owner and goal, or empty if the activity does not exist.
+     */
+    @Query("SELECT new com.codeday.productivity.model.ActivityOwnership(a.user.id, a.goal.id) FROM Activity a WHERE a.id = :id")
+    Optional<ActivityOwnership> findOwnershipById(@Param("id") int id);
+
+    /**
+     * Find the timers of all activities that were started and not stopped.
+     *
+     * @return The running timers.
+     */
+    @Query("SELECT new com.codeday.productivity.model.ActivityTimer(a.id, a.user.id, a.goal.id, a.startTime, a.stopTime, a.duration) "
+            + "FROM Activity a WHERE a.startTime IS NOT NULL AND a.stopTime IS NULL")
+    List<ActivityTimer> findRunningTimers();
+
+    /**
+     * Find the timer of an activity if it was started and not stopped.
+     *
+     * @param id The ID of the activity.
+     * @return The running timer, or empty if the activity does not exist or is not running.
+     */
+    @Query("SELECT new com.codeday.productivity.model.ActivityTimer(a.id, a.user.id, a.goal.id, a.startTime, a.stopTime, a.duration) "
+            + "FROM Activity a WHERE a.id = :id AND a.startTime IS NOT NULL AND a.stopTime IS NULL")
+    Optional<ActivityTimer> findRunningTimerById(@Param("id") int id);
 
     /**
      * Find activities by associated user.
@@ -76,4 +116,102 @@ public interface ActivityRepository extends JpaRepository<Activity, Integer> {
      * @return List of activities falling within the specified date range for the given user.
      */
     List<Activity> findByUserAndStartDateBetween(User user, Instant startDate, Instant endDate);
-}
\ No newline at end of file
+
+    /**
+     * Find the activities of a user as response DTOs.
+     *
+     * @param userId The ID of the user.
+     * @return The user's activities, ordered by ID.
+     */
+    @Query(ACTIVITY_RESPONSE + "WHERE a.user.id = :userId ORDER BY a.id")
+    List<ActivityResponse> findResponsesByUserId(@Param("userId") int userId);
+
+    /**
+     * Find the activities of a user for a goal as response DTOs.
+     *
+     * @param goalId The ID of the goal.
+     * @param userId The ID of the user.
+     * @return The matching activities, ordered by ID.
+     */
+    @Query(ACTIVITY_RESPONSE + "WHERE a.goal.id = :goalId AND a.user.id = :userId ORDER BY a.id")
+    List<ActivityResponse> findResponsesByGoalIdAndUserId(@Param("goalId") int goalId, @Param("userId") int userId);
+
+    /**
+     * Find the activities of a user with the given completion status as response DTOs.
+     *
+     * @param userId     The ID of the user.
+     * @param isComplete The completion status ('Y' or 'N').
+     * @return The matching activities, ordered by ID.
+     */
+    @Query(ACTIVITY_RESPONSE + "WHERE a.user.id = :userId AND a.isComplete = :isComplete ORDER BY a.id")
+    List<ActivityResponse> findResponsesByUserIdAndIsComplete(@Param("userId") int userId, @Param("isComplete") String isComplete);
+
+    /**
+     * Find the activities of a user starting within a date range as response DTOs.
+     *
+     * @param userId    The ID of the user.
+     * @param startDate The start of the range, inclusive.
+     * @param endDate   The end of the range, inclusive.
+     * @return The matching activities, ordered by ID.
+     */
+    @Query(ACTIVITY_RESPONSE + "WHERE a.user.id = :userId AND a.startDate BETWEEN :startDate AND :endDate ORDER BY a.id")
+    List<ActivityResponse> findResponsesByUserIdAndStartDateBetween(@Param("userId") int userId,
+                                                                    @Param("startDate") Instant startDate,
+                                                                    @Param("endDate") Instant endDate);
+
+    /**
+     * Find a page of the activities of a user starting within a date range, ordered by
+     * {@code (startDate, id)} and starting after the given key.
+     *
+     * @param userId    The ID of the user.
+     * @param startDate The start of the range, inclusive.
+     * @param endDate   The end of the range, inclusive.
+     * @param afterDate The start date of the last activity of the previous page, or {@code startDate} for the first page.
+     * @param afterId   The ID of the last activity of the previous page, or 0 for the first page.
+     * @param pageable  The page request holding the maximum number of rows to return.
+     * @return Up to {@code pageable.getPageSize()} matching activities.
+     */
+    @Query(ACTIVITY_RESPONSE + "WHERE a.user.id = :userId AND a.startDate BETWEEN :startDate AND :endDate "
+            + "AND (a.startDate > :afterDate OR (a.startDate = :afterDate AND a.id > :afterId)) "
+            + "ORDER BY a.startDate, a.id")
+    List<ActivityResponse> findPageByUserIdAndStartDateBetween(@Param("userId") int userId,
+                                                               @Param("startDate") Instant startDate,
+                                                               @Param("endDate") Instant endDate,
+                                                               @Param("afterDate") Instant afterDate,
+                                                               @Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * Find a page of the activities of a user with the given completion status and no start
+     * date, ordered by ID and starting after the given ID.
+     *
+     * @param userId     The ID of the user.
+     * @param isComplete The completion status ('Y' or 'N').
+     * @param afterId    The ID of the last activity of the previous page, or 0 for the first page.
+     * @param pageable   The page request holding the maximum number of rows to return.
+     * @return Up to {@code pageable.getPageSize()} matching activities.
+     */
+    @Query(ACTIVITY_RESPONSE + "WHERE a.user.id = :userId AND a.isComplete = :isComplete AND a.startDate IS NULL "
+            + "AND a.id > :afterId ORDER BY a.id")
+    List<ActivityResponse> findPageByUserIdAndIsCompleteWithoutStartDate(@Param("userId") int userId,
+                                                                         @Param("isComplete") String isComplete,
+                                                                         @Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * Find a page of the activities of a user with the given completion status and a start
+     * date, ordered by {@code (startDate, id)} and starting after the given key.
+     *
+     * @param userId     The ID of the user.
+     * @param isComplete The completion status ('Y' or 'N').
+     * @param afterDate  The start date of the last activity of the previous page.
+     * @param afterId    The ID of the last activity of the previous page, or 0 to start at {@code afterDate}.
+     * @param pageable   The page request holding the maximum number of rows to return.
+     * @return Up to {@code pageable.getPageSize()} matching activities.
+     */
+    @Query(ACTIVITY_RESPONSE + "WHERE a.user.id = :userId AND a.isComplete = :isComplete "
+            + "AND (a.startDate > :afterDate OR (a.startDate = :afterDate AND a.id > :afterId)) "
+            + "ORDER BY a.startDate, a.id")
+    List<ActivityResponse> findPageByUserIdAndIsCompleteOrderByStartDate(@Param("userId") int userId,
+                                                                         @Param("isComplete") String isComplete,
+                                                                         @Param("afterDate") Instant afterDate,
+                                                                         @Param("afterId") int afterId, Pageable pageable);
+}
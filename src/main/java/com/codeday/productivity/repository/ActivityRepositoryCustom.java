@@ -0,0 +1,25 @@
+package com.codeday.productivity.repository;
+
+import com.codeday.productivity.model.ActivityResponse;
+
+import java.util.stream.Stream;
+
+/**
+ * Activity queries that need settings from the environment, implemented in {@link ActivityRepositoryImpl}.
+ *
+ * @author Nahom Alemu
+ */
+public interface ActivityRepositoryCustom {
+
+    /**
+     * Streams the activities of a user as response DTOs.
+     * <p>
+     * Rows are streamed from the database rather than loaded as a list, and no entities are
+     * created, so this must be consumed inside a transaction and closed afterwards.
+     * </p>
+     *
+     * @param userId The ID of the user.
+     * @return A stream of the user's activities, ordered by start date and then by ID.
+     */
+    Stream<ActivityResponse> streamResponsesByUserId(int userId);
+}
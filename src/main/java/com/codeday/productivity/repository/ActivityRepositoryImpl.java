@@ -0,0 +1,50 @@
+package com.codeday.productivity.repository;
+
+import com.codeday.productivity.model.ActivityResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.stream.Stream;
+
+/**
+ * Builds the streaming activity queries of {@link ActivityRepositoryCustom}.
+ *
+ * <p>
+ * The default fetch size of {@link Integer#MIN_VALUE} makes MySQL Connector/J stream rows one
+ * at a time instead of reading the whole result into memory. Other drivers reject a negative
+ * fetch size, so it is configurable through {@code productivity.activities.export.fetch-size}.
+ * The query follows the {@code (user_id, start_date, id)} index on {@code ACTIVITY_TBL}, so the
+ * rows are read in index order without a sort.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+public class ActivityRepositoryImpl implements ActivityRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int fetchSize;
+
+    /**
+     * Constructor to initialize the streaming settings.
+     *
+     * @param fetchSize The JDBC fetch size of streamed queries.
+     */
+    @Autowired
+    public ActivityRepositoryImpl(@Value("${productivity.activities.export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Stream<ActivityResponse> streamResponsesByUserId(int userId) {
+        return entityManager.createQuery(ActivityRepository.ACTIVITY_RESPONSE
+                        + "WHERE a.user.id = :userId ORDER BY a.startDate, a.id", ActivityResponse.class)
+                .setParameter("userId", userId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+}
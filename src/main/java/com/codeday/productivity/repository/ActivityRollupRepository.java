@@ -0,0 +1,27 @@
+package com.codeday.productivity.repository;
+
+import com.codeday.productivity.entity.ActivityRollup;
+import com.codeday.productivity.entity.ActivityRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ActivityRollupRepository extends JpaRepository<ActivityRollup, ActivityRollupId> {
+
+    /**
+     * Find the daily activity totals of a user in a range of days. Days whose activities have
+     * all been removed are skipped.
+     *
+     * @param userId The ID of the user.
+     * @param from   The first day of the range.
+     * @param to     The day after the range.
+     * @return The daily totals, ordered by day and type.
+     */
+    @Query("SELECT r FROM ActivityRollup r WHERE r.id.userId = :userId AND r.id.day >= :from AND r.id.day < :to "
+            + "AND r.activityCount <> 0 ORDER BY r.id.day, r.id.type")
+    List<ActivityRollup> findByUserIdAndDayRange(@Param("userId") int userId, @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to);
+}
@@ -2,15 +2,150 @@ package com.codeday.productivity.repository;
 
 import com.codeday.productivity.entity.Goal;
 import com.codeday.productivity.entity.User;
+import com.codeday.productivity.model.GoalResponse;
+import com.codeday.productivity.model.GoalSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+
+public interface GoalRepository extends JpaRepository<Goal, Integer>, GoalRepositoryCustom {
+
+    /**
+     * Select clause building a {@link GoalResponse} from only the columns it needs.
+     */
+    String GOAL_RESPONSE = "SELECT new com.codeday.productivity.model.GoalResponse(g.id, g.title, g.description, "
+            + "g.startDate, g.endDate, g.dueDate, g.isComplete, g.progress, g.lastUpdated, g.user.id) FROM Goal g ";
 
-public interface GoalRepository extends JpaRepository<Goal, Integer> {
     List<Goal> findByUser(User user);
 
+    /**
+     * Find the ID of the user who owns a goal, without loading the goal.
+     *
+     * @param goalId The ID of the goal.
+     * @return The owner's ID, or empty if the goal does not exist.
+     */
+    @Query("SELECT g.user.id FROM Goal g WHERE g.id = :goalId")
+    Optional<Integer> findUserIdById(@Param("goalId") int goalId);
+
     List<Goal> findByUserAndIsComplete(User user, String isComplete);
     List<Goal> findByUserAndStartDate(User user, Instant startDate);
+
+    /**
+     * Find the goals of a user as response DTOs.
+     *
+     * @param userId The ID of the user.
+     * @return The user's goals, ordered by ID.
+     */
+    @Query(GOAL_RESPONSE + "WHERE g.user.id = :userId ORDER BY g.id")
+    List<GoalResponse> findResponsesByUserId(@Param("userId") int userId);
+
+    /**
+     * Find the goals of a user with the given completion status as response DTOs.
+     *
+     * @param userId     The ID of the user.
+     * @param isComplete The completion status ('Y' or 'N').
+     * @return The matching goals, ordered by ID.
+     */
+    @Query(GOAL_RESPONSE + "WHERE g.user.id = :userId AND g.isComplete = :isComplete ORDER BY g.id")
+    List<GoalResponse> findResponsesByUserIdAndIsComplete(@Param("userId") int userId, @Param("isComplete") String isComplete);
+
+    /**
+     * Find the goals of a user with the given start date as response DTOs.
+     *
+     * @param userId    The ID of the user.
+     * @param startDate The start date to match.
+     * @return The matching goals, ordered by ID.
+     */
+    @Query(GOAL_RESPONSE + "WHERE g.user.id = :userId AND g.startDate = :startDate ORDER BY g.id")
+    List<GoalResponse> findResponsesByUserIdAndStartDate(@Param("userId") int userId, @Param("startDate") Instant startDate);
+
+    /**
+     * Summarize every goal of a user from the goal's maintained counters, without touching
+     * the task or activity tables.
+     *
+     * @param userId The ID of the user.
+     * @return A summary per goal, ordered by goal ID.
+     */
+    @Query("SELECT new com.codeday.productivity.model.GoalSummary(g.id, g.title, g.isComplete, g.progress, "
+            + "g.taskCount, g.completedTaskCount, g.totalTaskTime, g.totalActivityDuration) "
+            + "FROM Goal g WHERE g.user.id = :userId ORDER BY g.id")
+    List<GoalSummary> findSummariesByUserId(@Param("userId") int userId);
+
+    /**
+     * Atomically apply a change in a goal's tasks to its counters and progress. Progress is
+     * assigned first and spelled out from the old values, because MySQL evaluates the SET
+     * list left to right against already updated columns.
+     *
+     * @param goalId    The ID of the goal.
+     * @param tasks     The change in the number of tasks.
+     * @param completed The change in the number of completed tasks.
+     * @param taskTime  The change in accumulated task time.
+     * @return The number of goals updated.
+     */
+    @Modifying
+    @Query("UPDATE Goal g SET "
+            + "g.progress = CASE WHEN g.taskCount + :tasks > 0 "
+            + "THEN ((g.completedTaskCount + :completed) * 100) / (g.taskCount + :tasks) ELSE 0 END, "
+            + "g.taskCount = g.taskCount + :tasks, "
+            + "g.completedTaskCount = g.completedTaskCount + :completed, "
+            + "g.totalTaskTime = g.totalTaskTime + :taskTime "
+            + "WHERE g.id = :goalId")
+    int applyTaskDelta(@Param("goalId") int goalId, @Param("tasks") int tasks,
+                       @Param("completed") int completed, @Param("taskTime") long taskTime);
+
+    /**
+     * Atomically apply a change in a goal's accumulated activity duration.
+     *
+     * @param goalId   The ID of the goal.
+     * @param duration The change in accumulated activity duration.
+     * @return The number of goals updated.
+     */
+    @Modifying
+    @Query("UPDATE Goal g SET g.totalActivityDuration = g.totalActivityDuration + :duration WHERE g.id = :goalId")
+    int applyActivityDurationDelta(@Param("goalId") int goalId, @Param("duration") long duration);
+
+    /**
+     * Recompute the counters and progress of a range of goals from their tasks and activities.
+     *
+     * @param fromId The first goal ID of the range, inclusive.
+     * @param toId   The last goal ID of the range, inclusive.
+     * @return The number of goals updated.
+     */
+    @Modifying
+    @Query("UPDATE Goal g SET "
+            + "g.taskCount = (SELECT COUNT(t) FROM Task t WHERE t.goal = g), "
+            + "g.completedTaskCount = (SELECT COUNT(t) FROM Task t WHERE t.goal = g AND t.isCompleted = 'Y'), "
+            + "g.totalTaskTime = (SELECT COALESCE(SUM(t.timeSpent), 0) FROM Task t WHERE t.goal = g), "
+            + "g.totalActivityDuration = (SELECT COALESCE(SUM(a.duration), 0) FROM Activity a WHERE a.goal = g), "
+            + "g.progress = CAST(COALESCE((SELECT (SUM(CASE WHEN t.isCompleted = 'Y' THEN 1 ELSE 0 END) * 100) "
+            + "/ NULLIF(COUNT(t), 0) FROM Task t WHERE t.goal = g), 0) AS Integer) "
+            + "WHERE g.id BETWEEN :fromId AND :toId")
+    int recomputeCounters(@Param("fromId") int fromId, @Param("toId") int toId);
+
+    /**
+     * Find goals whose counters were never computed: goals counting no tasks although they have
+     * some, or no activity time although their activities have some, as left behind when the
+     * counter columns are added to existing goals.
+     *
+     * @param pageable The page request limiting how many IDs are returned.
+     * @return The IDs of such goals.
+     */
+    @Query("SELECT g.id FROM Goal g WHERE (g.taskCount = 0 AND EXISTS (SELECT t.id FROM Task t WHERE t.goal = g)) "
+            + "OR (g.totalActivityDuration = 0 AND EXISTS (SELECT a.id FROM Activity a WHERE a.goal = g AND a.duration > 0))")
+    List<Integer> findIdsWithUncountedChildren(Pageable pageable);
+
+    /**
+     * Find the highest goal ID, if any goal exists.
+     *
+     * @return The highest goal ID, or null if there are no goals.
+     */
+    @Query("SELECT MAX(g.id) FROM Goal g")
+    Integer findMaxId();
 }
 
@@ -0,0 +1,69 @@
+package com.codeday.productivity.repository;
+
+import com.codeday.productivity.model.GoalResponse;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Goal queries whose shape depends on the request, implemented in {@link GoalRepositoryImpl}.
+ *
+ * @author Nahom Alemu
+ */
+public interface GoalRepositoryCustom {
+
+    /**
+     * The goal dates a range query can filter and sort on.
+     */
+    enum DateField {
+        START_DATE("startDate"),
+        DUE_DATE("dueDate"),
+        END_DATE("endDate");
+
+        private final String property;
+
+        DateField(String property) {
+            this.property = property;
+        }
+
+        /**
+         * @return The name of the {@code Goal} property this field maps to.
+         */
+        public String getProperty() {
+            return property;
+        }
+
+        /**
+         * Looks up a date field by its property name.
+         *
+         * @param property The property name, e.g. {@code dueDate}.
+         * @return The matching date field.
+         * @throws IllegalArgumentException If no date field has that property name.
+         */
+        public static DateField fromProperty(String property) {
+            for (DateField field : values()) {
+                if (field.property.equals(property)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported date field: " + property);
+        }
+    }
+
+    /**
+     * Find one page of a user's goals whose date falls in a half-open range, ordered by that
+     * date and then by ID. Goals without a value for the date are never returned.
+     *
+     * @param userId     The ID of the user.
+     * @param field      The date to filter and order on.
+     * @param from       The inclusive lower bound of the range, or null for no lower bound.
+     * @param to         The exclusive upper bound of the range, or null for no upper bound.
+     * @param descending Whether to order from the latest date to the earliest.
+     * @param afterDate  The date of the last goal of the previous page, or null for the first page.
+     * @param afterId    The ID of the last goal of the previous page; ignored on the first page.
+     * @param limit      The maximum number of goals to return.
+     * @return The goals of the page, in order.
+     */
+    List<GoalResponse> findPageByUserIdAndDateRange(int userId, DateField field, Instant from, Instant to,
+                                                    boolean descending, Instant afterDate, int afterId, int limit);
+}
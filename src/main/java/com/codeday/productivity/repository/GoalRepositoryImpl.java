@@ -0,0 +1,67 @@
+package com.codeday.productivity.repository;
+
+import com.codeday.productivity.model.GoalResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Builds the date-range goal queries of {@link GoalRepositoryCustom}.
+ *
+ * <p>
+ * Only the property names of {@link GoalRepositoryCustom.DateField} are ever spliced into the
+ * query text; every value is bound as a parameter. Each query is a prefix of the
+ * {@code (user_id, <date>, id)} index on {@code GOAL_TBL}, so the range and the keyset
+ * condition are resolved by an index range scan that is already in the requested order, with
+ * no sort. The scan is not index-only: {@link com.codeday.productivity.model.GoalResponse}
+ * needs columns the index does not hold, so each returned goal costs one primary-key lookup.
+ * The page limit stops the scan, so this is at most {@code limit} lookups per page.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+public class GoalRepositoryImpl implements GoalRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<GoalResponse> findPageByUserIdAndDateRange(int userId, DateField field, Instant from, Instant to,
+                                                           boolean descending, Instant afterDate, int afterId, int limit) {
+        String date = "g." + field.getProperty();
+        String after = descending ? " < " : " > ";
+        String direction = descending ? " DESC" : " ASC";
+
+        StringBuilder jpql = new StringBuilder(GoalRepository.GOAL_RESPONSE)
+                .append("WHERE g.user.id = :userId AND ").append(date).append(" IS NOT NULL");
+        if (from != null) {
+            jpql.append(" AND ").append(date).append(" >= :from");
+        }
+        if (to != null) {
+            jpql.append(" AND ").append(date).append(" < :to");
+        }
+        if (afterDate != null) {
+            jpql.append(" AND (").append(date).append(after).append(":afterDate OR (")
+                    .append(date).append(" = :afterDate AND g.id").append(after).append(":afterId))");
+        }
+        jpql.append(" ORDER BY ").append(date).append(direction).append(", g.id").append(direction);
+
+        TypedQuery<GoalResponse> query = entityManager.createQuery(jpql.toString(), GoalResponse.class)
+                .setParameter("userId", userId)
+                .setMaxResults(limit);
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (afterDate != null) {
+            query.setParameter("afterDate", afterDate);
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+}
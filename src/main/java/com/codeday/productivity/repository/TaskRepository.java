@@ -2,24 +2,87 @@ package com.codeday.productivity.repository;
 
 import com.codeday.productivity.entity.Goal;
 import com.codeday.productivity.entity.Task;
-import com.codeday.productivity.entity.User;
+import com.codeday.productivity.model.TaskResponse;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface TaskRepository extends JpaRepository<Task, Integer> {
+public interface TaskRepository extends JpaRepository<Task, Integer>, TaskRepositoryCustom {
 
+    /**
+     * Select clause building a {@link TaskResponse} from only the columns it needs.
+     */
+    String TASK_RESPONSE = "SELECT new com.codeday.productivity.model.TaskResponse(t.id, t.title, t.description, "
+            + "t.startDate, t.endDate, t.isCompleted, t.progress, t.timeSpent, t.lastUpdated, t.goal.id, t.version) FROM Task t ";
 
     // New methods to handle tasks based on goals
     List<Task> findByGoal(Goal goal);
 
     Optional<Task> findByGoalAndId(Goal goal, int id);
 
-    // Query to join Task, Goal, and User entities based on your data model
-    @Query("SELECT t FROM Task t JOIN t.goal g JOIN g.user u WHERE u = :user AND t.isCompleted = :completionStatus AND t.startDate >= :startDate AND t.endDate <= :endDate")
-    List<Task> findByCompletionStatusAndDates(@Param("user") User user, @Param("completionStatus") String completionStatus, @Param("startDate") Instant startDate, @Param("endDate") Instant endDate);
-}
\ No newline at end of file
+    // Locks the tasks until the transaction ends, so concurrent writers wait instead of going stale
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Task> findByGoalIdAndIdIn(int goalId, Collection<Integer> ids);
+
+    boolean existsByGoalIdAndId(int goalId, int id);
+
+    /**
+     * Atomically set a task's completion status if it is not already set, bumping its version.
+     * A task without a status counts as not completed.
+     *
+     * @param goalId The ID of the goal the task must belong to.
+     * @param id     The ID of the task.
+     * @param status The new status, {@code Y} or {@code N}.
+     * @param now    The time of the update.
+     * @return The number of tasks updated; 0 if the goal has no such task or the status is already set.
+     */
+    @Modifying
+    @Query("UPDATE Task t SET t.isCompleted = :status, t.lastUpdated = :now, t.version = t.version + 1 "
+            + "WHERE t.id = :id AND t.goal.id = :goalId AND COALESCE(t.isCompleted, 'N') <> :status")
+    int updateCompletion(@Param("goalId") int goalId, @Param("id") int id,
+                         @Param("status") String status, @Param("now") Instant now);
+
+    /**
+     * Atomically rename a task, bumping its version. With an expected version, the task is
+     * only renamed if nobody else has changed it since that version was read.
+     *
+     * @param goalId  The ID of the goal the task must belong to.
+     * @param id      The ID of the task.
+     * @param title   The new title.
+     * @param version The version the client last read, or null to rename unconditionally.
+     * @param now     The time of the update.
+     * @return The number of tasks updated; 0 if the goal has no such task or the version is outdated.
+     */
+    @Modifying
+    @Query("UPDATE Task t SET t.title = :title, t.lastUpdated = :now, t.version = t.version + 1 "
+            + "WHERE t.id = :id AND t.goal.id = :goalId AND (:version IS NULL OR t.version = :version)")
+    int updateTitle(@Param("goalId") int goalId, @Param("id") int id, @Param("title") String title,
+                    @Param("version") Long version, @Param("now") Instant now);
+
+    /**
+     * Find the tasks of a goal as response DTOs.
+     *
+     * @param goalId The ID of the goal.
+     * @return The goal's tasks, ordered by ID.
+     */
+    @Query(TASK_RESPONSE + "WHERE t.goal.id = :goalId ORDER BY t.id")
+    List<TaskResponse> findResponsesByGoalId(@Param("goalId") int goalId);
+
+    /**
+     * Find a task of a goal as a response DTO.
+     *
+     * @param goalId The ID of the goal.
+     * @param id     The ID of the task.
+     * @return The task, or empty if the goal has no task with that ID.
+     */
+    @Query(TASK_RESPONSE + "WHERE t.goal.id = :goalId AND t.id = :id")
+    Optional<TaskResponse> findResponseByGoalIdAndId(@Param("goalId") int goalId, @Param("id") int id);
+}
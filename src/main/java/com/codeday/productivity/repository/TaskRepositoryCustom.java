@@ -0,0 +1,28 @@
+package com.codeday.productivity.repository;
+
+import com.codeday.productivity.model.TaskFilter;
+import com.codeday.productivity.model.TaskResponse;
+
+import java.util.List;
+
+/**
+ * Task queries whose shape depends on the request, implemented in {@link TaskRepositoryImpl}.
+ *
+ * @author Nahom Alemu
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Find one page of the tasks of a user's goals that match a filter, ordered by goal ID and
+     * then task ID.
+     *
+     * @param userId      The ID of the user.
+     * @param filter      The criteria the tasks must match; null fields are ignored.
+     * @param afterGoalId The goal ID of the last task of the previous page, or null for the first page.
+     * @param afterId     The ID of the last task of the previous page; ignored on the first page.
+     * @param limit       The maximum number of tasks to return.
+     * @return The tasks of the page, in order.
+     */
+    List<TaskResponse> findPageByUserIdAndFilter(int userId, TaskFilter filter, Integer afterGoalId, int afterId,
+                                                 int limit);
+}
@@ -0,0 +1,96 @@
+package com.codeday.productivity.repository;
+
+import com.codeday.productivity.entity.Goal;
+import com.codeday.productivity.entity.Task;
+import com.codeday.productivity.model.TaskFilter;
+import com.codeday.productivity.model.TaskResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds the task search queries of {@link TaskRepositoryCustom} with the Criteria API.
+ *
+ * <p>
+ * Only the criteria actually supplied become predicates. Pages are ordered and keyed on
+ * {@code (goal_id, id)}, so each page resumes from the last task of the previous page instead of
+ * skipping or counting the rows before it. The {@code (goal_id, is_completed, id, start_date)}
+ * index on {@code TASK_TBL} serves the goal, completion status and page key predicates as an
+ * index range, in page order within each goal and status, and the start date window is checked
+ * on the index entries before any row is read. The end date window and title text are checked
+ * on the rows themselves. A task whose completion status was never set counts as not completed;
+ * that is matched with a plain {@code IS NULL} alternative rather than a function of the column,
+ * so the index still applies.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+public class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TaskResponse> findPageByUserIdAndFilter(int userId, TaskFilter filter, Integer afterGoalId,
+                                                        int afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskResponse> query = cb.createQuery(TaskResponse.class);
+        Root<Task> task = query.from(Task.class);
+        Join<Task, Goal> goal = task.join("goal");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(goal.get("user").get("id"), userId));
+        if (filter.getGoalId() != null) {
+            predicates.add(cb.equal(goal.get("id"), filter.getGoalId()));
+        }
+        if (filter.getIsCompleted() != null) {
+            Path<String> isCompleted = task.get("isCompleted");
+            Predicate status = cb.equal(isCompleted, filter.getIsCompleted());
+            predicates.add("N".equals(filter.getIsCompleted()) ? cb.or(status, cb.isNull(isCompleted)) : status);
+        }
+        addRange(cb, predicates, task.get("startDate"), filter.getStartFrom(), filter.getStartTo());
+        addRange(cb, predicates, task.get("endDate"), filter.getEndFrom(), filter.getEndTo());
+        if (filter.getTitle() != null) {
+            String pattern = "%" + escapeLike(filter.getTitle().toLowerCase(Locale.ROOT)) + "%";
+            predicates.add(cb.like(cb.lower(task.get("title")), pattern, LIKE_ESCAPE));
+        }
+        if (afterGoalId != null) {
+            Path<Integer> goalId = task.get("goal").get("id");
+            predicates.add(cb.or(cb.greaterThan(goalId, afterGoalId),
+                    cb.and(cb.equal(goalId, afterGoalId), cb.greaterThan(task.get("id"), afterId))));
+        }
+
+        query.select(cb.construct(TaskResponse.class, task.get("id"), task.get("title"), task.get("description"),
+                        task.get("startDate"), task.get("endDate"), task.get("isCompleted"), task.get("progress"),
+                        task.get("timeSpent"), task.get("lastUpdated"), goal.get("id"), task.get("version")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(task.get("goal").get("id")), cb.asc(task.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private static void addRange(CriteriaBuilder cb, List<Predicate> predicates, Path<Instant> date,
+                                 Instant from, Instant to) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(date, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(date, to));
+        }
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,9 +1,20 @@
 package com.codeday.productivity.repository;
 
 import com.codeday.productivity.entity.User;
+import com.codeday.productivity.model.UserResponse;
+import com.codeday.productivity.model.UserSearchResult;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * The UserRepository interface extends the JpaRepository interface to provide a
@@ -54,4 +65,140 @@ public interface UserRepository extends JpaRepository<User, Integer> {
      */
     Optional<User> findByEmail(String email);
 
-}
\ No newline at end of file
+    /**
+     * Finds which of the given email addresses are already registered.
+     * <p>
+     * Used by bulk imports to detect duplicates with a single {@code IN} query per chunk
+     * instead of one lookup per user.
+     * </p>
+     *
+     * @param emails The email addresses to check.
+     * @return The subset of the given email addresses that already belong to a User.
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Finds a page of users ordered by ID, starting after the given ID.
+     * <p>
+     * The query selects only the columns of {@link UserResponse}, and the caller bounds it
+     * with {@code pageable}; no count query is issued.
+     * </p>
+     *
+     * @param afterId  The ID of the last user of the previous page, or 0 for the first page.
+     * @param pageable The page request holding the maximum number of rows to return.
+     * @return Up to {@code pageable.getPageSize()} users with an ID greater than {@code afterId}.
+     */
+    @Query("SELECT new com.codeday.productivity.model.UserResponse(u.id, u.firstName, u.lastName, u.email, u.isActive, u.createdOn, u.lastUpdated) "
+            + "FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserResponse> findPageOrderById(@Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * Finds a page of users with the given first name ordered by ID, starting after the given ID.
+     *
+     * @param firstName The first name of the users to return.
+     * @param afterId   The ID of the last user of the previous page, or 0 for the first page.
+     * @param pageable  The page request holding the maximum number of rows to return.
+     * @return Up to {@code pageable.getPageSize()} matching users.
+     */
+    @Query("SELECT new com.codeday.productivity.model.UserResponse(u.id, u.firstName, u.lastName, u.email, u.isActive, u.createdOn, u.lastUpdated) "
+            + "FROM User u WHERE u.firstName = :firstName AND u.id > :afterId ORDER BY u.id")
+    List<UserResponse> findPageByFirstNameOrderById(@Param("firstName") String firstName, @Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * Finds a page of users with the given last name ordered by ID, starting after the given ID.
+     *
+     * @param lastName The last name of the users to return.
+     * @param afterId  The ID of the last user of the previous page, or 0 for the first page.
+     * @param pageable The page request holding the maximum number of rows to return.
+     * @return Up to {@code pageable.getPageSize()} matching users.
+     */
+    @Query("SELECT new com.codeday.productivity.model.UserResponse(u.id, u.firstName, u.lastName, u.email, u.isActive, u.createdOn, u.lastUpdated) "
+            + "FROM User u WHERE u.lastName = :lastName AND u.id > :afterId ORDER BY u.id")
+    List<UserResponse> findPageByLastNameOrderById(@Param("lastName") String lastName, @Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * Finds a page of users ordered by {@code (lastName, firstName, id)}, starting after the given key.
+     *
+     * @param lastName  The last name of the last user of the previous page, or "" for the first page.
+     * @param firstName The first name of the last user of the previous page, or "" for the first page.
+     * @param afterId   The ID of the last user of the previous page, or 0 for the first page.
+     * @param pageable  The page request holding the maximum number of rows to return.
+     * @return Up to {@code pageable.getPageSize()} users sorting after the given key.
+     */
+    @Query("SELECT new com.codeday.productivity.model.UserResponse(u.id, u.firstName, u.lastName, u.email, u.isActive, u.createdOn, u.lastUpdated) "
+            + "FROM User u WHERE u.lastName > :lastName "
+            + "OR (u.lastName = :lastName AND (u.firstName > :firstName OR (u.firstName = :firstName AND u.id > :afterId))) "
+            + "ORDER BY u.lastName, u.firstName, u.id")
+    List<UserResponse> findPageOrderByName(@Param("lastName") String lastName, @Param("firstName") String firstName,
+                                           @Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * Finds a page of users with the given first name ordered by {@code (lastName, firstName, id)}.
+     *
+     * @param firstName     The first name of the users to return.
+     * @param afterLastName The last name of the last user of the previous page, or "" for the first page.
+     * @param afterId       The ID of the last user of the previous page, or 0 for the first page.
+     * @param pageable      The page request holding the maximum number of rows to return.
+     * @return Up to {@code pageable.getPageSize()} matching users.
+     */
+    @Query("SELECT new com.codeday.productivity.model.UserResponse(u.id, u.firstName, u.lastName, u.email, u.isActive, u.createdOn, u.lastUpdated) "
+            + "FROM User u WHERE u.firstName = :firstName "
+            + "AND (u.lastName > :afterLastName OR (u.lastName = :afterLastName AND u.id > :afterId)) "
+            + "ORDER BY u.lastName, u.id")
+    List<UserResponse> findPageByFirstNameOrderByName(@Param("firstName") String firstName, @Param("afterLastName") String afterLastName,
+                                                      @Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * Finds a page of users with the given last name ordered by {@code (lastName, firstName, id)}.
+     *
+     * @param lastName       The last name of the users to return.
+     * @param afterFirstName The first name of the last user of the previous page, or "" for the first page.
+     * @param afterId        The ID of the last user of the previous page, or 0 for the first page.
+     * @param pageable       The page request holding the maximum number of rows to return.
+     * @return Up to {@code pageable.getPageSize()} matching users.
+     */
+    @Query("SELECT new com.codeday.productivity.model.UserResponse(u.id, u.firstName, u.lastName, u.email, u.isActive, u.createdOn, u.lastUpdated) "
+            + "FROM User u WHERE u.lastName = :lastName "
+            + "AND (u.firstName > :afterFirstName OR (u.firstName = :afterFirstName AND u.id > :afterId)) "
+            + "ORDER BY u.firstName, u.id")
+    List<UserResponse> findPageByLastNameOrderByName(@Param("lastName") String lastName, @Param("afterFirstName") String afterFirstName,
+                                                     @Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * Streams the email address of every user.
+     * <p>
+     * Rows are streamed from the database rather than loaded as a list, so this must be
+     * consumed inside a transaction and closed afterwards.
+     * </p>
+     *
+     * @return A stream of all registered email addresses.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamAllEmails();
+
+    /**
+     * Streams the ID, names and email of every user, for building the search index.
+     * <p>
+     * Rows are streamed from the database rather than loaded as a list, so this must be
+     * consumed inside a transaction and closed afterwards.
+     * </p>
+     *
+     * @return A stream of the searchable fields of all users.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.codeday.productivity.model.UserSearchResult(u.id, u.firstName, u.lastName, u.email) FROM User u")
+    Stream<UserSearchResult> streamSearchEntries();
+
+    /**
+     * Finds a user by ID as a response DTO, selecting only the columns of {@link UserResponse}.
+     *
+     * @param id The ID of the user.
+     * @return The user, or empty if it does not exist.
+     */
+    @Query("SELECT new com.codeday.productivity.model.UserResponse(u.id, u.firstName, u.lastName, u.email, u.isActive, u.createdOn, u.lastUpdated) "
+            + "FROM User u WHERE u.id = :id")
+    Optional<UserResponse> findResponseById(@Param("id") int id);
+
+}
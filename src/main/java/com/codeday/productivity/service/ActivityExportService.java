@@ -0,0 +1,134 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.model.ActivityResponse;
+import com.codeday.productivity.repository.ActivityRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Service class responsible for streaming exports of a user's activities.
+ *
+ * <p>
+ * Activities are read through a forward-only cursor as response DTOs and written to the output
+ * one row at a time as NDJSON or CSV, so neither a list of the rows nor managed entities are
+ * ever built up and memory use does not depend on the number of activities. The cursor is
+ * held in a read-only transaction for as long as the output takes to write.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Service
+public class ActivityExportService {
+
+    /**
+     * Supported output formats.
+     */
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final Logger LOGGER = LogManager.getLogger(ActivityExportService.class);
+    private static final String CSV_HEADER = "id,title,description,type,startDate,endDate,startTime,stopTime,"
+            + "duration,isComplete,lastUpdated,goalId,userId";
+
+    private final ActivityRepository activityRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Constructor to initialize the export dependencies.
+     *
+     * @param activityRepository The activity repository the rows are streamed from.
+     * @param objectMapper       The mapper used to write NDJSON rows.
+     * @param transactionManager The transaction manager the export runs in.
+     */
+    @Autowired
+    public ActivityExportService(ActivityRepository activityRepository, ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager) {
+        this.activityRepository = activityRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes all activities of a user to the output, ordered by start date and then by ID.
+     *
+     * @param userId The ID of the user whose activities are exported.
+     * @param format The format of the output.
+     * @param output The writer that receives the rows.
+     * @return The number of activities written.
+     * @throws IOException If writing the output fails.
+     */
+    public long exportActivities(int userId, Format format, Writer output) throws IOException {
+        LOGGER.info("Starting {} export of the activities of user {}", format, userId);
+        long startedAt = System.nanoTime();
+        AtomicLong count = new AtomicLong();
+        if (format == Format.CSV) {
+            output.write(CSV_HEADER);
+            output.write('\n');
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ActivityResponse> activities = activityRepository.streamResponsesByUserId(userId)) {
+                    activities.forEach(activity -> {
+                        try {
+                            if (format == Format.CSV) {
+                                writeCsvRow(output, activity);
+                            } else {
+                                output.write(objectMapper.writeValueAsString(activity));
+                                output.write('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        count.incrementAndGet();
+                    });
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        output.flush();
+        LOGGER.info("Exported {} activities of user {} in {} ms", count, userId, (System.nanoTime() - startedAt) / 1_000_000);
+        return count.get();
+    }
+
+    private static void writeCsvRow(Writer output, ActivityResponse activity) throws IOException {
+        Object[] values = {activity.getId(), activity.getTitle(), activity.getDescription(), activity.getType(),
+                activity.getStartDate(), activity.getEndDate(), activity.getStartTime(), activity.getStopTime(),
+                activity.getDuration(), activity.getIsComplete(), activity.getLastUpdated(), activity.getGoalId(),
+                activity.getUserId()};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                output.write(',');
+            }
+            if (values[i] != null) {
+                output.write(csvField(values[i].toString()));
+            }
+        }
+        output.write('\n');
+    }
+
+    /**
+     * Quotes a field if it contains a separator, a quote or a line break, doubling any quotes.
+     */
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,272 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.journal.ActivityEvent;
+import com.codeday.productivity.journal.ActivityJournal;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the started and stopped events of the {@link ActivityJournal} to
+ * {@code ACTIVITY_TBL} in batches.
+ *
+ * <p>
+ * Events are applied in journal order, each run of consecutive events of the same type as
+ * one JDBC batch, and the journal's checkpoint in {@code ACTIVITY_JOURNAL_CHECKPOINT} is advanced
+ * in the same transaction as the events it covers. Each application instance has its own journal
+ * and so its own checkpoint row, keyed by the journal's ID. On startup everything after the checkpoint is
+ * replayed before the application takes traffic. Applying an event twice gives the same
+ * result, since events carry absolute timer state and a stop moves the goal's accumulated
+ * activity duration by the difference to the duration already stored. Within one run only the
+ * last stop of each activity is applied, since every goal update of a run reads the duration
+ * stored before the run and earlier stops would otherwise each be counted.
+ * </p>
+ *
+ * <p>
+ * A stop is only applied to an activity that is still running from a start no later than the
+ * stop's own start, the stop time less its duration. A stale stop made by another instance,
+ * for a timer this instance already stopped, therefore changes nothing: neither an activity
+ * that is already stopped nor one restarted since. Since start times are stored to the second,
+ * the comparison allows one second, so a restart within a second of the original start is not
+ * told apart. Replaying a stop that was applied changes nothing for the same reason. The activity rollups
+ * follow the same way, since each run's activities are taken out of them before it is applied
+ * and put back after.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ActivityJournalProjector {
+
+    private static final Logger LOGGER = LogManager.getLogger(ActivityJournalProjector.class);
+
+    private static final String APPLY_START = "UPDATE activity_tbl SET is_complete = 'N', start_time = ?, stop_time = NULL, "
+            + "last_updated = ?, version = version + 1 WHERE id = ?";
+    // A stop only applies to a run still going that began no later than the stop's own start
+    private static final String STOPPABLE = "stop_time IS NULL AND start_time < ?";
+    // Reads the stored duration before it is overwritten; a deleted or unstoppable activity changes nothing
+    private static final String APPLY_GOAL_DURATION = "UPDATE goal_tbl SET total_activity_duration = total_activity_duration "
+            + "+ COALESCE(? - (SELECT duration FROM activity_tbl WHERE id = ? AND " + STOPPABLE + "), 0) WHERE id = ?";
+    private static final String APPLY_STOP = "UPDATE activity_tbl SET stop_time = ?, duration = ?, last_updated = ?, "
+            + "version = version + 1 WHERE id = ? AND " + STOPPABLE;
+    private static final String ADVANCE_CHECKPOINT = "UPDATE activity_journal_checkpoint SET position = ? WHERE journal_id = ?";
+
+    private final ActivityJournal journal;
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityRollupService rollupService;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final Duration interval;
+    private final ScheduledExecutorService projector;
+    private volatile long checkpoint;
+
+    /**
+     * Constructor to initialize the projector and register the projection lag gauge.
+     *
+     * @param journal            The activity journal to apply.
+     * @param jdbcTemplate       The JDBC template the batches run on.
+     * @param rollupService      The service keeping the activity rollups of stopped activities.
+     * @param transactionManager The transaction manager each batch runs in.
+     * @param registry           The meter registry the projection lag is published to.
+     * @param batchSize          The maximum number of events applied per transaction.
+     * @param interval           How often new events are looked for.
+     */
+    @Autowired
+    public ActivityJournalProjector(ActivityJournal journal, JdbcTemplate jdbcTemplate, ActivityRollupService rollupService,
+                                    PlatformTransactionManager transactionManager, MeterRegistry registry,
+                                    @Value("${productivity.journal.projector.batch-size:500}") int batchSize,
+                                    @Value("${productivity.journal.projector.interval:PT0.2S}") Duration interval) {
+        if (batchSize < 1 || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Invalid activity journal projector settings");
+        }
+        this.journal = journal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupService = rollupService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.interval = interval;
+        this.projector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "activity-journal-projector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("productivity.journal.projection_lag", this, p -> p.journal.durableSequence() - p.checkpoint)
+                .description("Activity journal events not yet applied to the database")
+                .register(registry);
+    }
+
+    /**
+     * Replays the events after the stored checkpoint and starts applying new ones in the background.
+     *
+     * @throws IllegalStateException If the checkpoint is past the end of the journal, which means the
+     *                               journal is not the one the checkpoint was taken from.
+     */
+    @PostConstruct
+    public void start() {
+        List<Long> stored = jdbcTemplate.queryForList("SELECT position FROM activity_journal_checkpoint WHERE journal_id = ?",
+                Long.class, journal.getId());
+        if (stored.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO activity_journal_checkpoint (journal_id, position) VALUES (?, 0)", journal.getId());
+        }
+        long position = stored.isEmpty() ? 0 : stored.get(0);
+        long end = journal.durableSequence();
+        if (position > end) {
+            // New events would be numbered below the checkpoint and never be applied
+            throw new IllegalStateException("Activity journal checkpoint " + position + " is past the end of journal "
+                    + journal.getId() + " at " + end + "; the journal directory was truncated or restored from an old copy");
+        }
+        checkpoint = position;
+        int replayed = catchUp();
+        LOGGER.info("Replayed {} events of activity journal {} from position {}", replayed, journal.getId(), checkpoint - replayed);
+        long intervalMillis = interval.toMillis();
+        projector.scheduleWithFixedDelay(this::projectQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies every durable event that has not been applied yet.
+     *
+     * @return The number of events applied.
+     */
+    public synchronized int catchUp() {
+        int applied = 0;
+        int batch;
+        do {
+            batch = projectBatch();
+            applied += batch;
+        } while (batch == batchSize);
+        return applied;
+    }
+
+    /**
+     * @return The sequence number following the last event applied to the database.
+     */
+    public long appliedSequence() {
+        return checkpoint;
+    }
+
+    private void projectQuietly() {
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to apply activity journal events, will retry", e);
+        }
+    }
+
+    private int projectBatch() {
+        List<ActivityEvent> events = journal.read(checkpoint, batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        long next = checkpoint + events.size();
+        transaction.executeWithoutResult(status -> {
+            List<ActivityEvent> run = new ArrayList<>();
+            for (ActivityEvent event : events) {
+                if (!run.isEmpty() && run.get(0).getType() != event.getType()) {
+                    apply(run);
+                    run.clear();
+                }
+                run.add(event);
+            }
+            apply(run);
+            jdbcTemplate.update(ADVANCE_CHECKPOINT, next, journal.getId());
+        });
+        checkpoint = next;
+        return events.size();
+    }
+
+    private void apply(List<ActivityEvent> run) {
+        ActivityEvent.Type type = run.get(0).getType();
+        if (type != ActivityEvent.Type.STARTED && type != ActivityEvent.Type.STOPPED) {
+            // Created and updated activities are already written; their events are the audit trail
+            return;
+        }
+        Set<Integer> activityIds = new LinkedHashSet<>();
+        for (ActivityEvent event : run) {
+            activityIds.add(event.getActivityId());
+        }
+        rollupService.subtract(activityIds);
+        switch (type) {
+            case STARTED -> jdbcTemplate.batchUpdate(APPLY_START, run, run.size(), (statement, event) -> {
+                setTime(statement, 1, event.getTime());
+                setTime(statement, 2, event.getTime());
+                statement.setInt(3, event.getActivityId());
+            });
+            case STOPPED -> {
+                List<ActivityEvent> stops = lastPerActivity(run);
+                jdbcTemplate.batchUpdate(APPLY_GOAL_DURATION, stops, stops.size(), (statement, event) -> {
+                    statement.setLong(1, event.getDuration());
+                    statement.setInt(2, event.getActivityId());
+                    setTime(statement, 3, startedBy(event));
+                    statement.setInt(4, event.getGoalId());
+                });
+                jdbcTemplate.batchUpdate(APPLY_STOP, stops, stops.size(), (statement, event) -> {
+                    setTime(statement, 1, event.getTime());
+                    statement.setLong(2, event.getDuration());
+                    setTime(statement, 3, event.getTime());
+                    statement.setInt(4, event.getActivityId());
+                    setTime(statement, 5, startedBy(event));
+                });
+            }
+            default -> throw new IllegalStateException("Unexpected activity event type " + type);
+        }
+        rollupService.add(activityIds);
+    }
+
+    // The duration is whole seconds and start times are stored to the second, so allow one more
+    private static Instant startedBy(ActivityEvent stop) {
+        return stop.getTime().minusSeconds(stop.getDuration()).plusSeconds(1);
+    }
+
+    private static List<ActivityEvent> lastPerActivity(List<ActivityEvent> run) {
+        Map<Integer, ActivityEvent> last = new LinkedHashMap<>();
+        for (ActivityEvent event : run) {
+            last.remove(event.getActivityId());
+            last.put(event.getActivityId(), event);
+        }
+        return new ArrayList<>(last.values());
+    }
+
+    // Stored as UTC, the same way Hibernate writes Instant columns
+    private static void setTime(PreparedStatement statement, int index, Instant time) throws SQLException {
+        statement.setTimestamp(index, Timestamp.from(time), Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC)));
+    }
+
+    /**
+     * Stops the background projection and applies the events still pending.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        projector.shutdown();
+        projector.awaitTermination(5, TimeUnit.SECONDS);
+        catchUp();
+    }
+}
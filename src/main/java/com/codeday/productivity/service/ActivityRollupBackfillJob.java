@@ -0,0 +1,85 @@
+package com.codeday.productivity.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Scheduled job that recomputes the activity rollups of every user from their activities.
+ *
+ * <p>
+ * The rollups are maintained incrementally as activities change, so this job backfills them
+ * once when the table is still empty on startup, and afterwards repairs any drift from write
+ * paths that bypass the services. It walks the users in ID ranges and rebuilds each range in
+ * its own short transaction, so it never holds locks across the whole table.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Component
+public class ActivityRollupBackfillJob {
+
+    private static final Logger LOGGER = LogManager.getLogger(ActivityRollupBackfillJob.class);
+
+    private final ActivityRollupService rollupService;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+
+    /**
+     * Constructor to initialize the rollup service and the batch size.
+     *
+     * @param rollupService      The activity rollup service.
+     * @param transactionManager The transaction manager each batch runs in.
+     * @param batchSize          The number of user IDs rebuilt per transaction.
+     */
+    @Autowired
+    public ActivityRollupBackfillJob(ActivityRollupService rollupService, PlatformTransactionManager transactionManager,
+                                     @Value("${productivity.activities.rollup.batch-size:100}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Activity rollup batch size must be positive");
+        }
+        this.rollupService = rollupService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Backfills the rollups if none have been computed yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (rollupService.isEmpty()) {
+            rebuildAll();
+        }
+    }
+
+    /**
+     * Recomputes the rollups of every user.
+     *
+     * @return The number of rollup rows written.
+     */
+    @Scheduled(cron = "${productivity.activities.rollup.cron:0 0 4 * * *}")
+    public int rebuildAll() {
+        Integer maxId = rollupService.findMaxUserId();
+        if (maxId == null) {
+            return 0;
+        }
+        long startedAt = System.nanoTime();
+        int written = 0;
+        for (long fromId = 0; fromId <= maxId; fromId += batchSize) {
+            int from = (int) fromId;
+            int to = (int) Math.min((long) maxId, fromId + batchSize - 1);
+            Integer rows = transaction.execute(status -> rollupService.rebuild(from, to));
+            written += rows == null ? 0 : rows;
+        }
+        LOGGER.info("Rebuilt {} activity rollups in {} ms", written, (System.nanoTime() - startedAt) / 1_000_000);
+        return written;
+    }
+}
@@ -0,0 +1,212 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.entity.ActivityRollup;
+import com.codeday.productivity.model.ActivityRollupBucket;
+import com.codeday.productivity.repository.ActivityRollupRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class responsible for the precomputed activity totals of each user, activity type
+ * and day kept in {@code ACTIVITY_ROLLUP}.
+ *
+ * <p>
+ * A stopped activity contributes its duration and a count of one to the day its timer was
+ * started on. Whenever a write changes an activity, its old contribution is subtracted before
+ * the change and its new one added after it, in the same transaction, so the rollups follow
+ * the activities without ever scanning them. Both steps are single
+ * {@code INSERT ... SELECT ... ON DUPLICATE KEY UPDATE} statements that read the activity row
+ * as it is stored; an activity that is not stopped, or no longer exists, contributes nothing.
+ * </p>
+ *
+ * <p>
+ * Dashboards read the daily rows of the requested range and fold them into weeks or months,
+ * so a read costs one row per day and type rather than one per activity.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Service
+public class ActivityRollupService {
+
+    private static final Logger LOGGER = LogManager.getLogger(ActivityRollupService.class);
+
+    private static final String APPLY_CONTRIBUTION = "INSERT INTO activity_rollup "
+            + "(user_id, activity_type, rollup_day, total_duration, activity_count) "
+            + "SELECT user_id, COALESCE(type, 'OTHER'), CAST(start_time AS DATE), ? * duration, ? FROM activity_tbl "
+            + "WHERE id = ? AND start_time IS NOT NULL AND stop_time IS NOT NULL "
+            + "ON DUPLICATE KEY UPDATE total_duration = total_duration + VALUES(total_duration), "
+            + "activity_count = activity_count + VALUES(activity_count)";
+    private static final String DELETE_USERS = "DELETE FROM activity_rollup WHERE user_id BETWEEN ? AND ?";
+    private static final String REBUILD_USERS = "INSERT INTO activity_rollup "
+            + "(user_id, activity_type, rollup_day, total_duration, activity_count) "
+            + "SELECT user_id, COALESCE(type, 'OTHER'), CAST(start_time AS DATE), SUM(duration), COUNT(*) FROM activity_tbl "
+            + "WHERE user_id BETWEEN ? AND ? AND start_time IS NOT NULL AND stop_time IS NOT NULL "
+            + "GROUP BY user_id, COALESCE(type, 'OTHER'), CAST(start_time AS DATE)";
+
+    private final ActivityRollupRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxDays;
+
+    /**
+     * Constructor to initialize the repository and the maximum range of a read.
+     *
+     * @param repository   The activity rollup repository.
+     * @param jdbcTemplate The JDBC template the rollup updates run on.
+     * @param maxDays      The maximum number of days a single read may cover.
+     */
+    @Autowired
+    public ActivityRollupService(ActivityRollupRepository repository, JdbcTemplate jdbcTemplate,
+                                 @Value("${productivity.activities.rollup.max-days:1000}") int maxDays) {
+        if (maxDays < 1) {
+            throw new IllegalArgumentException("Activity rollup range must be positive");
+        }
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxDays = maxDays;
+    }
+
+    /**
+     * Granularities the rollups can be read in.
+     */
+    public enum Granularity {
+        /** One bucket per day. */
+        DAY,
+        /** One bucket per ISO week, starting on Monday. */
+        WEEK,
+        /** One bucket per calendar month. */
+        MONTH
+    }
+
+    /**
+     * Removes the current contributions of activities from their rollups. Has to run in the
+     * transaction that changes the activities, before the change.
+     *
+     * @param activityIds The IDs of the activities, each at most once.
+     */
+    public void subtract(Collection<Integer> activityIds) {
+        apply(activityIds, -1);
+    }
+
+    /**
+     * Adds the current contributions of activities to their rollups. Has to run in the
+     * transaction that changes the activities, after the change has been written.
+     *
+     * @param activityIds The IDs of the activities, each at most once.
+     */
+    public void add(Collection<Integer> activityIds) {
+        apply(activityIds, 1);
+    }
+
+    private void apply(Collection<Integer> activityIds, int sign) {
+        if (activityIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(APPLY_CONTRIBUTION, activityIds, activityIds.size(), (statement, activityId) -> {
+            statement.setInt(1, sign);
+            statement.setInt(2, sign);
+            statement.setInt(3, activityId);
+        });
+    }
+
+    /**
+     * Recomputes the rollups of a range of users from their activities. Has to run in a
+     * transaction.
+     *
+     * @param fromUserId The first user ID of the range.
+     * @param toUserId   The last user ID of the range.
+     * @return The number of rollup rows written.
+     */
+    public int rebuild(int fromUserId, int toUserId) {
+        jdbcTemplate.update(DELETE_USERS, fromUserId, toUserId);
+        return jdbcTemplate.update(REBUILD_USERS, fromUserId, toUserId);
+    }
+
+    /**
+     * @return The highest user ID that has activities or rollups, or {@code null} if there are none.
+     */
+    public Integer findMaxUserId() {
+        Integer activities = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM activity_tbl", Integer.class);
+        Integer rollups = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM activity_rollup", Integer.class);
+        if (activities == null || rollups == null) {
+            return activities == null ? rollups : activities;
+        }
+        return Math.max(activities, rollups);
+    }
+
+    /**
+     * @return Whether no rollups have been computed yet.
+     */
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT user_id FROM activity_rollup LIMIT 1", Integer.class).isEmpty();
+    }
+
+    /**
+     * Retrieves the activity totals of a user per activity type, in buckets of the given
+     * granularity. Weeks and months that are only partly inside the range only count the days
+     * inside it.
+     *
+     * @param userId      The ID of the user.
+     * @param granularity The size of the buckets.
+     * @param from        The first day of the range.
+     * @param to          The day after the range.
+     * @return The non-empty buckets, ordered by start day and type.
+     * @throws IllegalArgumentException If the range is empty or longer than the maximum.
+     */
+    public List<ActivityRollupBucket> getRollups(int userId, Granularity granularity, LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > maxDays) {
+            throw new IllegalArgumentException("Range must not exceed " + maxDays + " days");
+        }
+        LOGGER.info("Fetching {} activity rollups of user {} from {} to {}", granularity, userId, from, to);
+
+        // Daily rows arrive ordered by day, so buckets are completed in order
+        Map<String, ActivityRollupBucket> buckets = new LinkedHashMap<>();
+        List<ActivityRollupBucket> result = new ArrayList<>();
+        LocalDate current = null;
+        for (ActivityRollup rollup : repository.findByUserIdAndDayRange(userId, from, to)) {
+            LocalDate start = bucketStart(rollup.getId().getDay(), granularity);
+            if (!start.equals(current)) {
+                addSorted(result, buckets);
+                current = start;
+            }
+            ActivityRollupBucket bucket = buckets.computeIfAbsent(rollup.getId().getType(),
+                    type -> new ActivityRollupBucket(start, type, 0, 0));
+            bucket.setTotalDuration(bucket.getTotalDuration() + rollup.getTotalDuration());
+            bucket.setActivityCount(bucket.getActivityCount() + rollup.getActivityCount());
+        }
+        addSorted(result, buckets);
+        return result;
+    }
+
+    private static void addSorted(List<ActivityRollupBucket> result, Map<String, ActivityRollupBucket> buckets) {
+        buckets.values().stream()
+                .sorted((a, b) -> a.getType().compareTo(b.getType()))
+                .forEach(result::add);
+        buckets.clear();
+    }
+
+    private static LocalDate bucketStart(LocalDate day, Granularity granularity) {
+        return switch (granularity) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+}
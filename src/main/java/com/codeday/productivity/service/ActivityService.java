@@ -4,20 +4,27 @@ import com.codeday.productivity.entity.Activity;
 import com.codeday.productivity.entity.User;
 import com.codeday.productivity.entity.Goal;
 import com.codeday.productivity.exceptions.ActivityGoalMismatchException;
+import com.codeday.productivity.exceptions.ActivityNotRunningException;
 import com.codeday.productivity.exceptions.GoalNotFoundException;
 import com.codeday.productivity.exceptions.UnauthorizedException;
+import com.codeday.productivity.model.ActivityResponse;
+import com.codeday.productivity.model.ActivityTimer;
+import com.codeday.productivity.model.CursorPage;
+import com.codeday.productivity.model.PageCursor;
 import com.codeday.productivity.repository.ActivityRepository;
 import com.codeday.productivity.exceptions.ActivityNotFoundException;
 import com.codeday.productivity.repository.GoalRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Duration;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Service class responsible for managing activities within the application.
@@ -32,20 +39,30 @@ public class ActivityService {
     private static final Logger LOGGER = LogManager.getLogger(ActivityService.class);
     private final ActivityRepository activityRepository;
     private final GoalRepository goalRepository;
-    private final GoalService goalService;
+    private final OwnershipService ownershipService;
+    private final ActivityTimerRegistry timerRegistry;
+    private final ActivityRollupService rollupService;
+    private final PageSizePolicy pageSizePolicy;
 
     /**
      * Constructor to initialize repositories and services.
      *
      * @param activityRepository The activity repository.
      * @param goalRepository     The goal repository.
-     * @param goalService        The goal service.
+     * @param ownershipService   The ownership service.
+     * @param timerRegistry      The registry of running activity timers.
+     * @param rollupService      The service keeping the activity rollups.
+     * @param pageSizePolicy     The policy resolving requested page sizes.
      */
     @Autowired
-    public ActivityService(ActivityRepository activityRepository, GoalRepository goalRepository, GoalService goalService) {
+    public ActivityService(ActivityRepository activityRepository, GoalRepository goalRepository, OwnershipService ownershipService,
+                           ActivityTimerRegistry timerRegistry, ActivityRollupService rollupService, PageSizePolicy pageSizePolicy) {
         this.activityRepository = activityRepository;
         this.goalRepository = goalRepository;
-        this.goalService = goalService;
+        this.ownershipService = ownershipService;
+        this.timerRegistry = timerRegistry;
+        this.rollupService = rollupService;
+        this.pageSizePolicy = pageSizePolicy;
     }
 
     /**
@@ -56,109 +73,74 @@ public class ActivityService {
      * @param goalId   The goal ID associated with the activity.
      * @return The saved activity.
      * @throws GoalNotFoundException When the goal is not found.
+     * @throws UnauthorizedException When the goal does not belong to the user.
      */
     public Activity saveActivityForUserAndGoal(User user, Activity activity, int goalId) {
-        // Fetch the Goal entity using its ID
-        Optional<Goal> optionalGoal = goalRepository.findById(goalId);
-        if (optionalGoal.isEmpty()) {
-            throw new GoalNotFoundException("Goal not found");
-        }
-        Goal goal = optionalGoal.get();
+        // Check the goal's owner without loading the goal, then associate by reference
+        ownershipService.requireGoalOwner(goalId, user.getId());
 
         // Set the user and the associated goal
         activity.setUser(user);
-        activity.setGoal(goal);
-
-        return activityRepository.save(activity);
-    }
+        activity.setGoal(goalRepository.getReferenceById(goalId));
 
-    /**
-     * Finds an activity by its ID and validates if it belongs to the given user.
-     *
-     * @param activityId The ID of the activity to find.
-     * @param user The user who owns the activity.
-     * @return The found activity.
-     * @throws ActivityNotFoundException When the activity is not found.
-     * @throws UnauthorizedException When the activity does not belong to the given user.
-     */
-    public Activity findActivityByIdAndUser(int activityId, User user) {
-        Optional<Activity> optionalActivity = activityRepository.findById(activityId);
-        if (optionalActivity.isEmpty()) {
-            throw new ActivityNotFoundException("Activity not found");
+        // A new activity starts running as soon as it is created
+        Activity savedActivity = activityRepository.save(activity);
+        if (savedActivity.getStopTime() == null) {
+            timerRegistry.register(new ActivityTimer(savedActivity.getId(), user.getId(), goalId,
+                    savedActivity.getStartTime(), null, 0));
         }
-        Activity activity = optionalActivity.get();
-        if (!activity.getUser().equals(user)) {
-            throw new UnauthorizedException("Unauthorized");
-        }
-        return activity;
+        return savedActivity;
     }
 
     /**
-     * Starts an activity for a given user and goal.
+     * Starts, or restarts, the timer of an activity for a given user and goal. The start is
+     * written to the database in the background.
      *
      * @param user The user starting the activity.
      * @param activityId The ID of the activity to start.
      * @param goalId The ID of the goal to which the activity belongs.
-     * @return The updated activity.
+     * @return The running timer.
+     * @throws ActivityNotFoundException When the activity is not found.
+     * @throws UnauthorizedException When the activity does not belong to the user.
      * @throws ActivityGoalMismatchException When the activity and goal do not match.
      */
-    public Activity startActivity(User user, int activityId, int goalId) {
-        // Retrieve the activity and validate it against the user and goal
-        Activity activity = findActivityByIdAndUser(activityId, user);
-
-        // Validate that the activity belongs to the goal
-        Goal goal = goalService.getGoalById(goalId);
-        if (!activity.getGoal().getId().equals(goal.getId())) {
-            throw new ActivityGoalMismatchException("Activity does not belong to the goal");
+    public ActivityTimer startActivity(User user, int activityId, int goalId) {
+        // A running timer already knows its owner and goal; otherwise only the foreign keys are read
+        ActivityTimer timer = timerRegistry.get(activityId);
+        if (timer != null) {
+            ownershipService.requireActivityOwner(timer, user.getId(), goalId);
+        } else {
+            ownershipService.requireActivityOwner(activityId, user.getId(), goalId);
         }
-
-        // Update the activity to indicate it has started
-        activity.setIsComplete("N");
-        activity.setStartTime(Instant.now());
-
-        return activityRepository.save(activity);
+        return timerRegistry.start(activityId, user.getId(), goalId);
     }
 
     /**
-     * Stops an ongoing activity for a given user and goal.
+     * Stops the running timer of an activity for a given user and goal, without reading the
+     * activity if its timer was started on this instance; otherwise the timer is taken from the
+     * stored activity. The stop time, the duration and the goal's accumulated activity duration are
+     * written to the database in the background.
      *
      * @param user The user stopping the activity.
      * @param activityId The ID of the activity to stop.
      * @param goalId The ID of the goal to which the activity belongs.
-     * @return The updated activity.
+     * @return The stopped timer, with the duration in seconds.
      * @throws ActivityNotFoundException When the activity is not found.
      * @throws UnauthorizedException When the activity does not belong to the user.
      * @throws ActivityGoalMismatchException When the activity and goal do not match.
+     * @throws ActivityNotRunningException When the activity is not running.
      */
-    public Activity stopActivity(User user, int activityId, int goalId) {
-        Optional<Activity> optionalActivity = activityRepository.findById(activityId);
-
-        if (optionalActivity.isEmpty()) {
-            throw new ActivityNotFoundException("Activity not found");
+    public ActivityTimer stopActivity(User user, int activityId, int goalId) {
+        // Also finds timers started on another instance, from the stored activity
+        ActivityTimer timer = timerRegistry.find(activityId).orElse(null);
+        if (timer == null) {
+            // Report a missing or foreign activity the same way as before, rather than as not running
+            ownershipService.requireActivityOwner(activityId, user.getId(), goalId);
+            throw new ActivityNotRunningException("Activity with ID " + activityId + " is not running.");
         }
-
-        Activity activity = optionalActivity.get();
-
-        // Validate that the activity belongs to the user
-        if (!activity.getUser().getId().equals(user.getId())) {
-            throw new UnauthorizedException("Activity does not belong to the user");
-        }
-
-        // Validate that the activity belongs to the goal
-        Goal goal = goalService.getGoalById(goalId);
-        if (!activity.getGoal().getId().equals(goal.getId())) {
-            throw new ActivityGoalMismatchException("Activity does not belong to the goal");
-        }
-
-        // Stop the activity and update the stopTime
-        Instant stopTime = Instant.now();
-        activity.setStopTime(stopTime);
-
-        // Calculate the duration
-        long duration = Duration.between(activity.getStartTime(), stopTime).getSeconds();
-        activity.setDuration(duration);
-
-        return activityRepository.save(activity);
+        ownershipService.requireActivityOwner(timer, user.getId(), goalId);
+        return timerRegistry.stop(activityId).orElseThrow(() ->
+                new ActivityNotRunningException("Activity with ID " + activityId + " is not running."));
     }
 
     /**
@@ -177,15 +159,18 @@ public class ActivityService {
     }
 
     /**
-     * Updates an existing activity.
+     * Updates an existing activity, and moves its contribution to the activity rollups if its
+     * type changed.
      *
      * @param updatedActivity The activity with updated information.
      * @return The updated activity.
      */
+    @Transactional
     public Activity updateActivity(int id, Activity updatedActivity) {
         LOGGER.info("Attempting to update activity with ID: {}", id);
 
         Activity existingActivity = getActivityById(id);
+        rollupService.subtract(List.of(id));
 
         if (updatedActivity.getDescription() != null || existingActivity.getDescription() == null) {
             existingActivity.setDescription(updatedActivity.getDescription());
@@ -203,7 +188,10 @@ public class ActivityService {
             existingActivity.setType(updatedActivity.getType());
         }
 
-        Activity savedActivity = activityRepository.save(existingActivity);
+        // Written before the new contribution is read back from the row
+        Activity savedActivity = activityRepository.saveAndFlush(existingActivity);
+        rollupService.add(List.of(id));
+        timerRegistry.recordUpdate(savedActivity.getId(), savedActivity.getUser().getId(), savedActivity.getGoal().getId());
         LOGGER.info("Successfully updated activity with ID: {}", savedActivity.getId());
 
         return savedActivity;
@@ -216,8 +204,8 @@ public class ActivityService {
      * @param user The User object representing the user for whom activities need to be fetched.
      * @return A list of activities that are associated with the specified goal ID and user.
      */
-    public List<Activity> findByGoalId(int goalId, User user) {
-        return activityRepository.findByGoalIdAndUserId(goalId, user.getId());
+    public List<ActivityResponse> findByGoalId(int goalId, User user) {
+        return activityRepository.findResponsesByGoalIdAndUserId(goalId, user.getId());
     }
 
     /**
@@ -227,8 +215,8 @@ public class ActivityService {
      * @param isComplete The completion status ('Y' for complete, 'N' for not complete) to filter the activities.
      * @return A list of activities that match the specified completion status and user.
      */
-    public List<Activity> findByUserAndIsComplete(User user, String isComplete) {
-        return activityRepository.findByUserAndIsComplete(user, isComplete);
+    public List<ActivityResponse> findByUserAndIsComplete(User user, String isComplete) {
+        return activityRepository.findResponsesByUserIdAndIsComplete(user.getId(), isComplete);
     }
 
     /**
@@ -239,8 +227,104 @@ public class ActivityService {
      * @param endDate The ending date (as an Instant object) of the date range.
      * @return A list of activities that fall within the specified date range for the given user.
      */
-    public List<Activity> findByUserAndStartDateBetween(User user, Instant startDate, Instant endDate) {
-        return activityRepository.findByUserAndStartDateBetween(user, startDate, endDate);
+    public List<ActivityResponse> findByUserAndStartDateBetween(User user, Instant startDate, Instant endDate) {
+        return activityRepository.findResponsesByUserIdAndStartDateBetween(user.getId(), startDate, endDate);
+    }
+
+    /**
+     * Retrieves one page of the activities of a user with the given completion status, ordered
+     * by start date and then ID. Activities without a start date come first, ordered by ID.
+     *
+     * @param user       The user whose activities are fetched.
+     * @param isComplete The completion status ('Y' or 'N') to filter the activities.
+     * @param cursor     The continuation token of the previous page, or {@code null} for the first page.
+     * @param limit      The requested page size, or {@code null} for the default.
+     * @return The page of activities and the continuation token of the next page.
+     * @throws IllegalArgumentException If the cursor or page size is invalid.
+     */
+    public CursorPage<ActivityResponse> getActivitiesPageByCompletionStatus(User user, String isComplete, String cursor,
+                                                                            Integer limit) {
+        int pageSize = pageSizePolicy.resolve(limit);
+        String ordering = "STATUS:" + isComplete;
+        Instant afterDate = null;
+        int afterId = 0;
+        if (cursor != null) {
+            List<String> key = PageCursor.decode(cursor, ordering, 2);
+            afterDate = key.get(0) == null ? null : parseDate(key.get(0));
+            afterId = parseId(key.get(1));
+        }
+
+        // Undated activities sort first, so a page may end them and continue with the dated ones
+        List<ActivityResponse> rows = new ArrayList<>();
+        if (afterDate == null) {
+            rows.addAll(activityRepository.findPageByUserIdAndIsCompleteWithoutStartDate(user.getId(), isComplete, afterId,
+                    PageRequest.of(0, pageSize + 1)));
+            afterDate = Instant.EPOCH;
+            afterId = 0;
+        }
+        if (rows.size() <= pageSize) {
+            rows.addAll(activityRepository.findPageByUserIdAndIsCompleteOrderByStartDate(user.getId(), isComplete, afterDate,
+                    afterId, PageRequest.of(0, pageSize + 1 - rows.size())));
+        }
+        return toPage(rows, pageSize, ordering);
+    }
+
+    /**
+     * Retrieves one page of the activities of a user that start within a date range, ordered
+     * by start date and then ID.
+     *
+     * @param user      The user whose activities are fetched.
+     * @param startDate The start of the range, inclusive.
+     * @param endDate   The end of the range, inclusive.
+     * @param cursor    The continuation token of the previous page, or {@code null} for the first page.
+     * @param limit     The requested page size, or {@code null} for the default.
+     * @return The page of activities and the continuation token of the next page.
+     * @throws IllegalArgumentException If the range, cursor or page size is invalid.
+     */
+    public CursorPage<ActivityResponse> getActivitiesPageByDateRange(User user, Instant startDate, Instant endDate,
+                                                                     String cursor, Integer limit) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("Range start must not be after range end");
+        }
+        int pageSize = pageSizePolicy.resolve(limit);
+        String ordering = "START_DATE:asc";
+        Instant afterDate = startDate;
+        int afterId = 0;
+        if (cursor != null) {
+            List<String> key = PageCursor.decode(cursor, ordering, 2);
+            afterDate = parseDate(key.get(0));
+            afterId = parseId(key.get(1));
+        }
+
+        List<ActivityResponse> rows = activityRepository.findPageByUserIdAndStartDateBetween(user.getId(), startDate, endDate,
+                afterDate, afterId, PageRequest.of(0, pageSize + 1));
+        return toPage(rows, pageSize, ordering);
+    }
+
+    private static CursorPage<ActivityResponse> toPage(List<ActivityResponse> rows, int pageSize, String ordering) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<ActivityResponse> page = rows.subList(0, pageSize);
+        ActivityResponse last = page.get(pageSize - 1);
+        String nextCursor = PageCursor.encode(ordering, last.getStartDate(), last.getId());
+        return new CursorPage<>(new ArrayList<>(page), nextCursor);
+    }
+
+    private static Instant parseDate(String value) {
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 
     /**
@@ -271,8 +355,8 @@ public class ActivityService {
      * @param user The User object representing the user for whom activities are being fetched.
      * @return A list of all activities that are associated with the specified user.
      */
-    public List<Activity> getAllActivitiesByUser(User user) {
-        return activityRepository.findByUser(user);
+    public List<ActivityResponse> getAllActivitiesByUser(User user) {
+        return activityRepository.findResponsesByUserId(user.getId());
     }
 
     /**
@@ -281,13 +365,19 @@ public class ActivityService {
      * @param id The ID of the activity to be deleted.
      * @throws ActivityNotFoundException When the activity is not found.
      */
+    @Transactional
     public void deleteActivity(int id) {
         LOGGER.info("Attempting to delete activity with ID: {}", id);
-        if (!activityRepository.existsById(id)) {
+        Activity activity = activityRepository.findById(id).orElseThrow(() -> {
             LOGGER.warn("Failed to delete activity. Activity with ID {} does not exist", id);
-            throw new ActivityNotFoundException("Activity with ID " + id + " does not exist.");
+            return new ActivityNotFoundException("Activity with ID " + id + " does not exist.");
+        });
+        rollupService.subtract(List.of(id));
+        activityRepository.delete(activity);
+        timerRegistry.discard(id);
+        if (activity.getGoal() != null && activity.getDuration() != 0) {
+            goalRepository.applyActivityDurationDelta(activity.getGoal().getId(), -activity.getDuration());
         }
-        activityRepository.deleteById(id);
         LOGGER.info("Successfully deleted activity with ID: {}", id);
     }
 
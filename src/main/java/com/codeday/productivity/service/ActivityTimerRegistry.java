@@ -0,0 +1,278 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.journal.ActivityEvent;
+import com.codeday.productivity.journal.ActivityJournal;
+import com.codeday.productivity.model.ActivityTimer;
+import com.codeday.productivity.repository.ActivityRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory registry of running activity timers, keyed by activity ID.
+ *
+ * <p>
+ * Starting and stopping a timer only changes the registry and appends an event to the
+ * {@link ActivityJournal}, so a stop never reads the activity: its owner, goal and start time
+ * are already in memory. Each event is appended while a lock of that activity alone is held, so
+ * the journal holds the changes of an activity in the order they were made without an append
+ * ever holding up other activities, and the change is acknowledged once the journal has forced
+ * the event to disk. The
+ * {@link ActivityJournalProjector} writes the new state to {@code ACTIVITY_TBL} afterwards;
+ * a stop also moves the goal's accumulated activity duration by the difference to the
+ * previously stored duration.
+ * </p>
+ *
+ * <p>
+ * On startup the journal is replayed first, then the registry is rebuilt from the activities
+ * that have a start time but no stop time. Behind a load balancer, each instance only holds the
+ * timers started on it, so a timer this instance does not know is looked up in
+ * {@code ACTIVITY_TBL} instead. A start made on another instance shows up there once that
+ * instance's projector has applied it, within its projection interval. Until this instance's
+ * projector has applied a stop, the stored activity still looks running, so the registry
+ * remembers the stop's sequence number and reports the activity as not running meanwhile.
+ * </p>
+ *
+ * <p>
+ * A timer stopped on another instance stays in this instance's registry, and in its running
+ * timer count, until it is stopped here too or the instance restarts. Such a stale stop is
+ * journaled and acknowledged, but the projector only applies a stop to an activity still
+ * running from the same start, so it never overwrites the stop time and duration stored by the
+ * other instance.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Component
+public class ActivityTimerRegistry {
+
+    private static final Logger LOGGER = LogManager.getLogger(ActivityTimerRegistry.class);
+
+    private final ActivityRepository activityRepository;
+    private final ActivityJournal journal;
+    private final ActivityJournalProjector projector;
+    private final Timer acknowledgeLatency;
+    private final Map<Integer, ActivityTimer> running = new ConcurrentHashMap<>();
+    private final Map<Integer, ActivityLock> locks = new ConcurrentHashMap<>();
+    // Sequence numbers of stops not yet applied to the database, keyed by activity ID
+    private final Map<Integer, Long> pendingStops = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor to initialize the registry and register its metrics.
+     *
+     * @param activityRepository The activity repository the registry is rebuilt from.
+     * @param journal            The journal timer changes are appended to.
+     * @param projector          The projector that applies the journal to the database.
+     * @param registry           The meter registry the registry statistics are published to.
+     */
+    @Autowired
+    public ActivityTimerRegistry(ActivityRepository activityRepository, ActivityJournal journal,
+                                 ActivityJournalProjector projector, MeterRegistry registry) {
+        this.activityRepository = activityRepository;
+        this.journal = journal;
+        this.projector = projector;
+        Gauge.builder("productivity.activity_timers.running", running, Map::size)
+                .description("Activity timers currently running")
+                .register(registry);
+        this.acknowledgeLatency = Timer.builder("productivity.journal.acknowledge")
+                .description("Time until a timer change is durable in the activity journal")
+                .register(registry);
+    }
+
+    /**
+     * Loads the timers of all activities that were started and not stopped, once every journal
+     * event has been applied.
+     */
+    @PostConstruct
+    public void rebuild() {
+        projector.catchUp();
+        activityRepository.findRunningTimers().forEach(timer -> running.put(timer.getActivityId(), timer));
+        LOGGER.info("Restored {} running activity timers", running.size());
+    }
+
+    /**
+     * @param activityId The ID of the activity.
+     * @return The activity's running timer, or null if the activity is not running.
+     */
+    public ActivityTimer get(int activityId) {
+        return running.get(activityId);
+    }
+
+    /**
+     * Finds the running timer of an activity, falling back to the stored activity if this
+     * instance does not know it, for timers started on another instance.
+     *
+     * @param activityId The ID of the activity.
+     * @return The activity's running timer, or empty if the activity is not running.
+     */
+    public Optional<ActivityTimer> find(int activityId) {
+        ActivityTimer timer = running.get(activityId);
+        if (timer != null) {
+            return Optional.of(timer);
+        }
+        return isStopPending(activityId) ? Optional.empty() : activityRepository.findRunningTimerById(activityId);
+    }
+
+    /**
+     * Tracks the timer of a newly created activity, which is already stored as running, and
+     * records its creation in the journal.
+     *
+     * @param timer The running timer.
+     */
+    public void register(ActivityTimer timer) {
+        running.put(timer.getActivityId(), timer);
+        journal.append(new ActivityEvent(ActivityEvent.Type.CREATED, timer.getActivityId(), timer.getUserId(),
+                timer.getGoalId(), timer.getStartTime(), 0));
+    }
+
+    /**
+     * Records an edit of an activity in the journal. The edit itself is already stored.
+     *
+     * @param activityId The ID of the activity.
+     * @param userId     The ID of the user the activity belongs to.
+     * @param goalId     The ID of the goal the activity belongs to.
+     */
+    public void recordUpdate(int activityId, int userId, int goalId) {
+        journal.append(new ActivityEvent(ActivityEvent.Type.UPDATED, activityId, userId, goalId, Instant.now(), 0));
+    }
+
+    /**
+     * Starts or restarts the timer of an activity from now, returning once the start is durable.
+     *
+     * @param activityId The ID of the activity.
+     * @param userId     The ID of the user the activity belongs to.
+     * @param goalId     The ID of the goal the activity belongs to.
+     * @return The running timer.
+     */
+    public ActivityTimer start(int activityId, int userId, int goalId) {
+        long[] sequence = new long[1];
+        ActivityTimer timer = withActivityLock(activityId, () -> {
+            Instant now = Instant.now();
+            sequence[0] = journal.append(new ActivityEvent(ActivityEvent.Type.STARTED, activityId, userId, goalId, now, 0));
+            ActivityTimer started = new ActivityTimer(activityId, userId, goalId, now, null, 0);
+            running.put(activityId, started);
+            pendingStops.remove(activityId);
+            return started;
+        });
+        acknowledge(sequence[0]);
+        return timer;
+    }
+
+    /**
+     * Stops the timer of an activity now, returning once the stop is durable. A timer this
+     * instance does not know is stopped from the stored activity, unless this instance stopped
+     * it and the stop has not been applied to the database yet.
+     *
+     * @param activityId The ID of the activity.
+     * @return The stopped timer, or empty if the activity was not running.
+     */
+    public Optional<ActivityTimer> stop(int activityId) {
+        long[] sequence = new long[1];
+        ActivityTimer stopped = withActivityLock(activityId, () -> {
+            ActivityTimer timer = running.remove(activityId);
+            if (timer == null) {
+                if (isStopPending(activityId)) {
+                    return null;
+                }
+                timer = activityRepository.findRunningTimerById(activityId).orElse(null);
+                if (timer == null) {
+                    return null;
+                }
+            }
+            Instant now = Instant.now();
+            long duration = Duration.between(timer.getStartTime(), now).getSeconds();
+            sequence[0] = journal.append(new ActivityEvent(ActivityEvent.Type.STOPPED, activityId, timer.getUserId(),
+                    timer.getGoalId(), now, duration));
+            pendingStops.put(activityId, sequence[0]);
+            return new ActivityTimer(activityId, timer.getUserId(), timer.getGoalId(), timer.getStartTime(), now, duration);
+        });
+        if (stopped != null) {
+            acknowledge(sequence[0]);
+            long applied = projector.appliedSequence();
+            pendingStops.values().removeIf(stop -> stop < applied);
+        }
+        return Optional.ofNullable(stopped);
+    }
+
+    /**
+     * Forgets the timer of a deleted activity.
+     *
+     * @param activityId The ID of the activity.
+     */
+    public void discard(int activityId) {
+        running.remove(activityId);
+        pendingStops.remove(activityId);
+    }
+
+    /**
+     * Forgets the timers of the activities of a deleted goal.
+     *
+     * @param goalId The ID of the goal.
+     */
+    public void discardGoal(int goalId) {
+        running.values().removeIf(timer -> timer.getGoalId() == goalId);
+    }
+
+    /**
+     * Forgets the timers of the activities of a user whose data was deleted.
+     *
+     * @param userId The ID of the user.
+     */
+    public void discardUser(int userId) {
+        running.values().removeIf(timer -> timer.getUserId() == userId);
+    }
+
+    // Whether this instance stopped the activity and the stored activity does not show it yet
+    private boolean isStopPending(int activityId) {
+        Long stop = pendingStops.get(activityId);
+        if (stop == null) {
+            return false;
+        }
+        if (stop < projector.appliedSequence()) {
+            pendingStops.remove(activityId, stop);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Runs an action while holding the lock of one activity. Locks exist only while in use, so
+     * the map does not grow with the number of activities ever started.
+     */
+    private <T> T withActivityLock(int activityId, Supplier<T> action) {
+        ActivityLock lock = locks.compute(activityId, (id, current) -> {
+            ActivityLock held = current != null ? current : new ActivityLock();
+            held.users++;
+            return held;
+        });
+        try {
+            synchronized (lock) {
+                return action.get();
+            }
+        } finally {
+            locks.computeIfPresent(activityId, (id, held) -> --held.users == 0 ? null : held);
+        }
+    }
+
+    // Waits outside the activity lock, so changes of other activities share the same force
+    private void acknowledge(long sequence) {
+        acknowledgeLatency.record(() -> journal.awaitDurable(sequence));
+    }
+
+    // The number of threads holding or waiting for the lock is only changed inside the map's compute calls
+    private static final class ActivityLock {
+        private int users;
+    }
+}
@@ -0,0 +1,247 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter over the email addresses registered in {@code USER_TBL}.
+ *
+ * <p>
+ * A negative answer from {@link #mightContain(String)} means the email is definitely not
+ * registered, so signup paths can skip the duplicate lookup for it. A positive answer only
+ * means the email may be registered and must be confirmed against the database, which stays
+ * authoritative through the unique constraint on the email column.
+ * </p>
+ *
+ * <p>
+ * The filter is warmed from the database in the background once the application is ready,
+ * and answers "may contain" for every email until warming has finished. Emails are added as
+ * users are created or change their email; addresses that are no longer in use stay in the
+ * filter and only cost an extra lookup. Memory use, the expected false-positive rate and the
+ * observed false-positive rate are published under {@code productivity.email_filter.*}.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Component
+public class EmailMembershipFilter {
+
+    private static final Logger LOGGER = LogManager.getLogger(EmailMembershipFilter.class);
+
+    private final UserRepository repository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean warmed;
+
+    private final AtomicLong insertions = new AtomicLong();
+    private final AtomicLong definitelyNew = new AtomicLong();
+    private final AtomicLong possibleHits = new AtomicLong();
+    private final AtomicLong confirmedHits = new AtomicLong();
+
+    /**
+     * Constructor to size the filter and register its metrics.
+     *
+     * @param repository                The user repository the filter is warmed from.
+     * @param transactionManager        The transaction manager used to stream emails while warming.
+     * @param registry                  The meter registry the filter statistics are published to.
+     * @param expectedInsertions        The number of emails the filter is sized for.
+     * @param falsePositiveProbability  The target false-positive rate at the expected number of emails.
+     */
+    @Autowired
+    public EmailMembershipFilter(UserRepository repository, PlatformTransactionManager transactionManager, MeterRegistry registry,
+                                 @Value("${productivity.users.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                                 @Value("${productivity.users.email-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        if (expectedInsertions < 1 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("Invalid email filter sizing");
+        }
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+
+        Gauge.builder("productivity.email_filter.memory", this, EmailMembershipFilter::memoryBytes)
+                .baseUnit("bytes")
+                .description("Memory used by the email filter bit array")
+                .register(registry);
+        Gauge.builder("productivity.email_filter.expected_false_positive_rate", this, EmailMembershipFilter::expectedFalsePositiveRate)
+                .description("False-positive rate expected for the number of emails inserted so far")
+                .register(registry);
+        Gauge.builder("productivity.email_filter.observed_false_positive_rate", this, EmailMembershipFilter::observedFalsePositiveRate)
+                .description("Share of new emails the filter reported as possibly registered")
+                .register(registry);
+        FunctionCounter.builder("productivity.email_filter.definitely_new", definitelyNew, AtomicLong::get)
+                .description("Lookups answered without querying the database")
+                .register(registry);
+        FunctionCounter.builder("productivity.email_filter.possible_hits", possibleHits, AtomicLong::get)
+                .description("Lookups that had to be confirmed against the database")
+                .register(registry);
+    }
+
+    /**
+     * Starts warming the filter from {@code USER_TBL} in the background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmInBackground() {
+        Thread warmer = new Thread(this::warm, "email-filter-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    private void warm() {
+        try {
+            long started = System.nanoTime();
+            AtomicLong count = new AtomicLong();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> emails = repository.streamAllEmails()) {
+                    emails.forEach(email -> {
+                        add(email);
+                        count.incrementAndGet();
+                    });
+                }
+            });
+            warmed = true;
+            LOGGER.info("Email filter warmed with {} emails in {} ms: {} bytes, {} hash functions, expected false-positive rate {}",
+                    count, (System.nanoTime() - started) / 1_000_000, memoryBytes(), hashCount, expectedFalsePositiveRate());
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to warm email filter; all emails will be checked against the database", e);
+        }
+    }
+
+    /**
+     * Returns whether the email may already be registered.
+     *
+     * @param email The email to check.
+     * @return {@code false} if the email is definitely not registered, {@code true} otherwise.
+     */
+    public boolean mightContain(String email) {
+        if (!isWarmed() || email == null) {
+            return true;
+        }
+        long[] hashes = hash(email);
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hashes, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                definitelyNew.incrementAndGet();
+                return false;
+            }
+        }
+        possibleHits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records how many possible hits the database confirmed as registered, so the observed
+     * false-positive rate can be reported. Hits confirmed before warming has finished are
+     * ignored, since the filter did not take part in those lookups.
+     *
+     * @param count The number of confirmed registrations.
+     */
+    public void recordConfirmedHits(long count) {
+        if (warmed) {
+            confirmedHits.addAndGet(count);
+        }
+    }
+
+    /**
+     * Adds an email to the filter.
+     *
+     * @param email The registered email.
+     */
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+        long[] hashes = hash(email);
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hashes, i);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // retry until the bit is set
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Returns whether the filter has been fully warmed and can rule emails out.
+     */
+    public boolean isWarmed() {
+        return warmed;
+    }
+
+    public long memoryBytes() {
+        return bitCount / 8;
+    }
+
+    /**
+     * Returns the false-positive rate expected for the number of emails inserted so far,
+     * {@code (1 - e^(-k * n / m))^k}.
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) insertions.get() / bitCount), hashCount);
+    }
+
+    /**
+     * Returns the share of lookups for unregistered emails that the filter could not rule out.
+     */
+    public double observedFalsePositiveRate() {
+        long falsePositives = possibleHits.get() - confirmedHits.get();
+        long newEmails = definitelyNew.get() + falsePositives;
+        return newEmails == 0 ? 0 : (double) falsePositives / newEmails;
+    }
+
+    private long index(long[] hashes, int i) {
+        return Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+    }
+
+    /**
+     * Computes two independent 64-bit hashes of the normalized email; the k probe positions
+     * are derived from them by double hashing.
+     */
+    private static long[] hash(String email) {
+        byte[] bytes = email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        long h1 = 0xcbf29ce484222325L;
+        long h2 = 0x9e3779b97f4a7c15L;
+        for (byte b : bytes) {
+            h1 = (h1 ^ (b & 0xff)) * 0x100000001b3L;
+            h2 = (h2 ^ (b & 0xff)) * 0xff51afd7ed558ccdL;
+        }
+        return new long[]{mix(h1), mix(h2) | 1};
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,128 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.repository.GoalRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Scheduled job that recomputes the task and activity counters kept on each goal.
+ *
+ * <p>
+ * The counters are maintained incrementally as tasks and activities change, so they can drift
+ * if a write path bypasses the services or two updates of the same task race. The job walks the
+ * goal table in ID ranges and recomputes each range from its tasks and activities in its own
+ * short transaction, so it never holds locks across the whole table. On startup it also runs
+ * once in the background if any goal's counters were never computed, which is the case for
+ * every existing goal right after the counter columns are added. Every instance schedules the
+ * job, but a run only goes ahead on the instance that takes its {@link JobLockService} lease.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Component
+public class GoalCounterRepairJob {
+
+    private static final Logger LOGGER = LogManager.getLogger(GoalCounterRepairJob.class);
+    static final String LOCK_NAME = "goal-counter-repair";
+
+    private final GoalRepository repository;
+    private final TransactionTemplate transaction;
+    private final JobLockService lockService;
+    private final int batchSize;
+    private final Duration lockLease;
+
+    /**
+     * Constructor to initialize the repository, the batch size and the lease a run holds.
+     *
+     * @param repository         The goal repository.
+     * @param transactionManager The transaction manager each batch runs in.
+     * @param lockService        The service that lets one instance at a time run the repair.
+     * @param batchSize          The number of goal IDs recomputed per transaction.
+     * @param lockLease          How long a run keeps other instances from running the repair.
+     */
+    @Autowired
+    public GoalCounterRepairJob(GoalRepository repository, PlatformTransactionManager transactionManager,
+                                JobLockService lockService,
+                                @Value("${productivity.goals.counter-repair.batch-size:1000}") int batchSize,
+                                @Value("${productivity.goals.counter-repair.lock-lease:PT1H}") Duration lockLease) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Counter repair batch size must be positive");
+        }
+        if (lockLease.isNegative() || lockLease.isZero()) {
+            throw new IllegalArgumentException("Counter repair lock lease must be positive");
+        }
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.lockService = lockService;
+        this.batchSize = batchSize;
+        this.lockLease = lockLease;
+    }
+
+    /**
+     * Starts recomputing uninitialized goal counters in the background, so startup does not
+     * wait for the whole goal table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void repairInBackground() {
+        Thread repairer = new Thread(() -> {
+            try {
+                repairIfUninitialized();
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to initialize goal counters; they will be recomputed by the scheduled repair", e);
+            }
+        }, "goal-counter-repair");
+        repairer.setDaemon(true);
+        repairer.start();
+    }
+
+    /**
+     * Recomputes the counters of every goal if any goal has tasks or activity time its counters
+     * do not reflect at all.
+     */
+    public void repairIfUninitialized() {
+        if (!repository.findIdsWithUncountedChildren(PageRequest.of(0, 1)).isEmpty()) {
+            LOGGER.info("Found goals with uninitialized counters, recomputing all goal counters");
+            repairAll();
+        }
+    }
+
+    /**
+     * Recomputes the counters of every goal, unless another instance has run or is running the
+     * repair within the lock lease.
+     *
+     * @return The number of goals recomputed.
+     */
+    @Scheduled(cron = "${productivity.goals.counter-repair.cron:0 30 3 * * *}")
+    public int repairAll() {
+        if (!lockService.tryLock(LOCK_NAME, lockLease)) {
+            LOGGER.info("Goal counter repair is held by another instance, skipping this run");
+            return 0;
+        }
+        Integer maxId = repository.findMaxId();
+        if (maxId == null) {
+            return 0;
+        }
+        long startedAt = System.nanoTime();
+        int repaired = 0;
+        for (long fromId = 0; fromId <= maxId; fromId += batchSize) {
+            int from = (int) fromId;
+            int to = (int) Math.min((long) maxId, fromId + batchSize - 1);
+            Integer updated = transaction.execute(status -> repository.recomputeCounters(from, to));
+            repaired += updated == null ? 0 : updated;
+            LOGGER.info("Recomputed counters of goal IDs {} to {} of {}, {} goals so far", from, to, maxId, repaired);
+        }
+        LOGGER.info("Recomputed counters of {} goals in {} ms", repaired, (System.nanoTime() - startedAt) / 1_000_000);
+        return repaired;
+    }
+}
@@ -2,26 +2,37 @@ package com.codeday.productivity.service;
 
 import com.codeday.productivity.entity.Goal;
 import com.codeday.productivity.entity.User;
+import com.codeday.productivity.model.CursorPage;
+import com.codeday.productivity.model.GoalResponse;
+import com.codeday.productivity.model.GoalSummary;
+import com.codeday.productivity.model.PageCursor;
 import com.codeday.productivity.repository.GoalRepository;
+import com.codeday.productivity.repository.GoalRepositoryCustom.DateField;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class GoalService {
 
     private final GoalRepository repository;
+    private final PageSizePolicy pageSizePolicy;
+    private final PurgeService purgeService;
 
     @Autowired  // Constructor injection
-    public GoalService(GoalRepository repository) {
+    public GoalService(GoalRepository repository, PageSizePolicy pageSizePolicy, PurgeService purgeService) {
         this.repository = repository;
+        this.pageSizePolicy = pageSizePolicy;
+        this.purgeService = purgeService;
     }
 
+    // Goals are persisted through their owning side only, so the user's goal collection is never loaded
     public Goal saveGoalForUser(User user, Goal goal){
         goal.setUser(user);
-        user.getGoals().add(goal);
         return repository.save(goal);
     }
 
@@ -29,21 +40,86 @@ public class GoalService {
         return repository.findById(goalId).orElseThrow(() -> new RuntimeException("Goal not found"));
     }
 
+    // Reference for associating rows with a goal whose existence was already checked; no query is issued
+    public Goal getGoalReference(int goalId) {
+        return repository.getReferenceById(goalId);
+    }
+
+    // The goal, its tasks and its activities are deleted in chunks in the background
     public void removeGoalForUser(User user, Goal goal) {
-        user.getGoals().remove(goal);
-        goal.setUser(null);
-        repository.delete(goal);
+        if (!goal.getUser().getId().equals(user.getId())) {
+            throw new IllegalArgumentException("Goal does not belong to the specified user");
+        }
+        purgeService.purgeGoal(goal.getId());
+    }
+
+    public List<GoalResponse> getAllGoalsByUser(User user){
+        return repository.findResponsesByUserId(user.getId());
     }
-    public List<Goal> getAllGoalsByUser(User user){
-        return repository.findByUser(user);
+
+    public List<GoalResponse> getAllGoalsByUserAndCompletion(User user, String isComplete){
+        return repository.findResponsesByUserIdAndIsComplete(user.getId(), isComplete);
     }
 
-    public List<Goal> getAllGoalsByUserAndCompletion(User user, String isComplete){
-        return repository.findByUserAndIsComplete(user, isComplete);
+    public List<GoalResponse> getAllGoalsByUserAndStartDate(User user, Instant startDate){
+        return repository.findResponsesByUserIdAndStartDate(user.getId(), startDate);
+    }
+
+    public List<GoalSummary> getGoalSummariesByUser(User user){
+        return repository.findSummariesByUserId(user.getId());
+    }
+
+    /**
+     * Retrieves one page of a user's goals whose date falls in the range {@code [from, to)},
+     * ordered by that date and then by ID.
+     *
+     * @param user       The user whose goals are listed.
+     * @param field      The date to filter and order on.
+     * @param from       The inclusive lower bound of the range, or null for no lower bound.
+     * @param to         The exclusive upper bound of the range, or null for no upper bound.
+     * @param descending Whether to list the latest dates first.
+     * @param cursor     The continuation token of the previous page, or null for the first page.
+     * @param limit      The requested page size, or null for the default.
+     * @return The page of goals and the token of the next page, if any.
+     * @throws IllegalArgumentException If the range is empty, or the cursor or page size is invalid.
+     */
+    public CursorPage<GoalResponse> getGoalsPageByDateRange(User user, DateField field, Instant from, Instant to,
+                                                            boolean descending, String cursor, Integer limit) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Range start must be before range end");
+        }
+        int pageSize = pageSizePolicy.resolve(limit);
+        String ordering = field.name() + (descending ? ":desc" : ":asc");
+
+        Instant afterDate = null;
+        int afterId = 0;
+        if (cursor != null) {
+            List<String> key = PageCursor.decode(cursor, ordering, 2);
+            try {
+                afterDate = Instant.parse(key.get(0));
+                afterId = Integer.parseInt(key.get(1));
+            } catch (DateTimeParseException | NumberFormatException | NullPointerException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        List<GoalResponse> rows = repository.findPageByUserIdAndDateRange(user.getId(), field, from, to, descending,
+                afterDate, afterId, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<GoalResponse> page = rows.subList(0, pageSize);
+        GoalResponse last = page.get(pageSize - 1);
+        String nextCursor = PageCursor.encode(ordering, dateOf(last, field), last.getId());
+        return new CursorPage<>(new ArrayList<>(page), nextCursor);
     }
 
-    public List<Goal> getAllGoalsByUserAndStartDate(User user, Instant startDate){
-        return repository.findByUserAndStartDate(user, startDate);
+    private static Instant dateOf(GoalResponse goal, DateField field) {
+        return switch (field) {
+            case START_DATE -> goal.getStartDate();
+            case DUE_DATE -> goal.getDueDate();
+            case END_DATE -> goal.getEndDate();
+        };
     }
 
 }
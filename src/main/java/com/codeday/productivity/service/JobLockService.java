@@ -0,0 +1,71 @@
+package com.codeday.productivity.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Service class that lets one application instance at a time run a scheduled job.
+ *
+ * <p>
+ * Each job has a row in {@code JOB_LOCK}. An instance takes the job with one conditional
+ * update that only succeeds when the current lease has expired, so of several instances whose
+ * schedules fire together exactly one runs the job. The lease is not given back when the run
+ * finishes; it simply expires, so an instance whose schedule fires a little later still finds
+ * the job taken. A lease should therefore be longer than a run and shorter than the schedule's
+ * period.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Service
+public class JobLockService {
+
+    private static final String TAKE = "UPDATE job_lock SET locked_until = ?, locked_by = ? WHERE name = ? AND locked_until <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Constructor to initialize the JDBC template.
+     *
+     * @param jdbcTemplate The JDBC template the lease is taken with.
+     */
+    @Autowired
+    public JobLockService(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, Clock.systemUTC());
+    }
+
+    JobLockService(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes the lease on a job unless another instance holds it.
+     *
+     * @param name  The name of the job.
+     * @param lease How long the job belongs to this instance.
+     * @return Whether this instance may run the job.
+     */
+    public boolean tryLock(String name, Duration lease) {
+        long now = clock.millis();
+        if (jdbcTemplate.update(TAKE, now + lease.toMillis(), instanceId, name, now) == 1) {
+            return true;
+        }
+        try {
+            // The job's first run; a concurrent first insert by another instance wins instead
+            jdbcTemplate.update("INSERT INTO job_lock (name, locked_until, locked_by) VALUES (?, ?, ?)",
+                    name, now + lease.toMillis(), instanceId);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.cache.ExpiringLruCache;
+import com.codeday.productivity.entity.Activity;
+import com.codeday.productivity.exceptions.ActivityGoalMismatchException;
+import com.codeday.productivity.exceptions.ActivityNotFoundException;
+import com.codeday.productivity.exceptions.GoalNotFoundException;
+import com.codeday.productivity.exceptions.UnauthorizedException;
+import com.codeday.productivity.model.ActivityOwnership;
+import com.codeday.productivity.model.ActivityTimer;
+import com.codeday.productivity.repository.ActivityRepository;
+import com.codeday.productivity.repository.GoalRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class responsible for checking that goals and activities belong to the user a
+ * request is made for.
+ *
+ * <p>
+ * Checks never load the user or the goal. A goal's owner is answered from a small cache of
+ * goal ID to user ID, falling back to a single primary-key lookup of the {@code user_id}
+ * column; an activity's owner and goal are read together in one primary-key lookup, or taken
+ * from its running timer. Goals never change owner, and deleted goals are evicted by
+ * {@link PurgeService}, so cached owners stay accurate.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Service
+public class OwnershipService {
+
+    private final GoalRepository goalRepository;
+    private final ActivityRepository activityRepository;
+    private final ExpiringLruCache<Integer, Integer> goalOwners;
+
+    /**
+     * Constructor to initialize the repositories and the goal owner cache.
+     *
+     * @param goalRepository     The goal repository.
+     * @param activityRepository The activity repository.
+     * @param goalOwners         The cache of owning user IDs keyed by goal ID.
+     */
+    @Autowired
+    public OwnershipService(GoalRepository goalRepository, ActivityRepository activityRepository,
+                            ExpiringLruCache<Integer, Integer> goalOwners) {
+        this.goalRepository = goalRepository;
+        this.activityRepository = activityRepository;
+        this.goalOwners = goalOwners;
+    }
+
+    /**
+     * Checks that a goal exists and belongs to a user.
+     *
+     * @param goalId The ID of the goal.
+     * @param userId The ID of the user.
+     * @throws GoalNotFoundException When the goal does not exist.
+     * @throws UnauthorizedException When the goal belongs to another user.
+     */
+    public void requireGoalOwner(int goalId, int userId) {
+        Integer ownerId = goalOwners.get(goalId);
+        if (ownerId == null) {
+            ownerId = goalRepository.findUserIdById(goalId)
+                    .orElseThrow(() -> new GoalNotFoundException("Goal not found"));
+            goalOwners.put(goalId, ownerId);
+        }
+        if (ownerId != userId) {
+            throw new UnauthorizedException("Goal does not belong to the user");
+        }
+    }
+
+    /**
+     * Checks that an activity exists and belongs to a user, without loading the activity.
+     *
+     * @param activityId The ID of the activity.
+     * @param userId     The ID of the user.
+     * @throws ActivityNotFoundException When the activity does not exist.
+     * @throws UnauthorizedException     When the activity belongs to another user.
+     */
+    public void requireActivityOwner(int activityId, int userId) {
+        ActivityOwnership ownership = activityRepository.findOwnershipById(activityId)
+                .orElseThrow(() -> new ActivityNotFoundException("Activity not found"));
+        if (ownership.getUserId() != userId) {
+            throw new UnauthorizedException("Activity does not belong to the user");
+        }
+    }
+
+    /**
+     * Checks that an activity exists and belongs to a user and a goal, without loading the activity.
+     *
+     * @param activityId The ID of the activity.
+     * @param userId     The ID of the user.
+     * @param goalId     The ID of the goal.
+     * @throws ActivityNotFoundException     When the activity does not exist.
+     * @throws UnauthorizedException         When the activity belongs to another user.
+     * @throws ActivityGoalMismatchException When the activity belongs to another goal.
+     */
+    public void requireActivityOwner(int activityId, int userId, int goalId) {
+        ActivityOwnership ownership = activityRepository.findOwnershipById(activityId)
+                .orElseThrow(() -> new ActivityNotFoundException("Activity not found"));
+        requireOwnership(ownership.getUserId(), ownership.getGoalId(), userId, goalId);
+    }
+
+    /**
+     * Checks that a running activity timer belongs to a user and a goal. No query is issued.
+     *
+     * @param timer  The running timer of the activity.
+     * @param userId The ID of the user.
+     * @param goalId The ID of the goal.
+     * @throws UnauthorizedException         When the activity belongs to another user.
+     * @throws ActivityGoalMismatchException When the activity belongs to another goal.
+     */
+    public void requireActivityOwner(ActivityTimer timer, int userId, int goalId) {
+        requireOwnership(timer.getUserId(), timer.getGoalId(), userId, goalId);
+    }
+
+    /**
+     * Checks that an already loaded activity belongs to a user and a goal. Only the foreign
+     * keys of the activity are read, so neither the user nor the goal is loaded.
+     *
+     * @param activity The activity.
+     * @param userId   The ID of the user.
+     * @param goalId   The ID of the goal.
+     * @throws UnauthorizedException         When the activity belongs to another user.
+     * @throws ActivityGoalMismatchException When the activity belongs to another goal.
+     */
+    public void requireActivityOwner(Activity activity, int userId, int goalId) {
+        requireOwnership(activity.getUser().getId(), activity.getGoal().getId(), userId, goalId);
+    }
+
+    private static void requireOwnership(int ownerId, int ownerGoalId, int userId, int goalId) {
+        if (ownerId != userId) {
+            throw new UnauthorizedException("Activity does not belong to the user");
+        }
+        if (ownerGoalId != goalId) {
+            throw new ActivityGoalMismatchException("Activity does not belong to the goal");
+        }
+    }
+
+    /**
+     * Forgets the cached owner of a goal, after the goal changed owner or was deleted.
+     *
+     * @param goalId The ID of the goal.
+     */
+    public void evictGoal(int goalId) {
+        goalOwners.invalidate(goalId);
+    }
+}
@@ -0,0 +1,62 @@
+package com.codeday.productivity.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the page size of keyset-paginated listings.
+ *
+ * <p>
+ * Requests without a limit get the configured default page size, and larger requests are
+ * capped at the configured maximum so a single call can never return an unbounded result.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Component
+public class PageSizePolicy {
+
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    /**
+     * Constructor to initialize the page size limits.
+     *
+     * @param defaultPageSize The page size used when the client does not ask for one.
+     * @param maxPageSize     The largest page size a client may ask for.
+     */
+    public PageSizePolicy(@Value("${productivity.pagination.default-page-size:20}") int defaultPageSize,
+                          @Value("${productivity.pagination.max-page-size:100}") int maxPageSize) {
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Resolves the page size for a request.
+     *
+     * @param requested The page size requested by the client, or {@code null} for the default.
+     * @return The page size to use, never larger than the configured maximum.
+     * @throws IllegalArgumentException If the requested page size is not positive.
+     */
+    public int resolve(Integer requested) {
+        return resolve(requested, maxPageSize);
+    }
+
+    /**
+     * Resolves the page size for a request against a listing-specific maximum.
+     *
+     * @param requested The page size requested by the client, or {@code null} for the default.
+     * @param maximum   The largest page size allowed for the listing.
+     * @return The page size to use, never larger than {@code maximum}.
+     * @throws IllegalArgumentException If the requested page size is not positive.
+     */
+    public int resolve(Integer requested, int maximum) {
+        if (requested == null) {
+            return Math.min(defaultPageSize, maximum);
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        return Math.min(requested, maximum);
+    }
+}
@@ -0,0 +1,193 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.exceptions.HashingCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service class responsible for hashing passwords on a dedicated, bounded worker pool.
+ *
+ * <p>
+ * BCrypt is deliberately CPU-heavy, so hashes are computed on a fixed-size pool, which bounds
+ * how many run at once no matter how many requests ask for one. Work waits in a bounded queue;
+ * when the queue is full, new work is rejected with a {@link HashingCapacityExceededException}
+ * so the caller can answer {@code 503 Service Unavailable} with a {@code Retry-After} header.
+ * Bulk hashing submits at most a small window of passwords at a time, so a large import cannot
+ * monopolize the queue.
+ * </p>
+ *
+ * <p>
+ * The pool does not free request threads: callers block until their hash is done, so every
+ * queued or running password parks one request thread. The pool and the queue together are
+ * therefore kept within half of the web server's request threads, which leaves the other half
+ * serving cheap requests while hashing is saturated. A pool that would not fit is shrunk, with
+ * a warning, rather than failing startup.
+ * </p>
+ *
+ * <p>
+ * Queue depth, hash latency, queue wait time and rejections are published under
+ * {@code productivity.password_hashing.*}.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger LOGGER = LogManager.getLogger(PasswordHashingService.class);
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int bulkWindow;
+    private final long retryAfterSeconds;
+
+    private final Timer hashLatency;
+    private final Timer queueWait;
+    private final Counter rejections;
+
+    /**
+     * Constructor to create the hashing pool and register its metrics.
+     *
+     * @param passwordEncoder   The BCrypt encoder, configured with the application's cost factor.
+     * @param registry          The meter registry the hashing statistics are published to.
+     * @param threads           The number of hashing threads; 0 uses the number of available processors.
+     * @param queueCapacity     The maximum number of passwords waiting for a hashing thread.
+     * @param retryAfterSeconds The {@code Retry-After} hint given to rejected callers.
+     * @param requestThreads    The maximum number of web server request threads.
+     * @throws IllegalArgumentException If the queue capacity leaves no room for a hashing thread within half of the
+     *                                  request threads.
+     */
+    @Autowired
+    public PasswordHashingService(BCryptPasswordEncoder passwordEncoder, MeterRegistry registry,
+                                  @Value("${productivity.security.hashing.threads:0}") int threads,
+                                  @Value("${productivity.security.hashing.queue-capacity:32}") int queueCapacity,
+                                  @Value("${productivity.security.hashing.retry-after-seconds:2}") long retryAfterSeconds,
+                                  @Value("${server.tomcat.threads.max:200}") int requestThreads) {
+        int maxPoolSize = requestThreads / 2 - queueCapacity;
+        if (queueCapacity < 1 || maxPoolSize < 1) {
+            throw new IllegalArgumentException("Password hashing queue capacity must be positive and leave room for "
+                    + "a hashing thread within half of server.tomcat.threads.max (" + requestThreads + ")");
+        }
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        if (poolSize > maxPoolSize) {
+            LOGGER.warn("Limiting password hashing to {} threads instead of {}, so that hashing and its queue of {} "
+                    + "park at most half of the {} request threads", maxPoolSize, poolSize, queueCapacity, requestThreads);
+            poolSize = maxPoolSize;
+        }
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.bulkWindow = Math.max(1, Math.min(queueCapacity, poolSize * 2));
+
+        Gauge.builder("productivity.password_hashing.queue_depth", executor, pool -> pool.getQueue().size())
+                .description("Passwords waiting for a hashing thread")
+                .register(registry);
+        Gauge.builder("productivity.password_hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing threads currently busy")
+                .register(registry);
+        this.hashLatency = Timer.builder("productivity.password_hashing.latency")
+                .description("Time spent computing a password hash")
+                .register(registry);
+        this.queueWait = Timer.builder("productivity.password_hashing.queue_wait")
+                .description("Time a password waited in the queue before hashing started")
+                .register(registry);
+        this.rejections = Counter.builder("productivity.password_hashing.rejections")
+                .description("Passwords rejected because the hashing queue was full")
+                .register(registry);
+    }
+
+    /**
+     * Hashes a single password.
+     *
+     * @param rawPassword The password to hash.
+     * @return The BCrypt hash.
+     * @throws HashingCapacityExceededException If the hashing queue is full.
+     */
+    public String encode(String rawPassword) {
+        return await(submit(rawPassword));
+    }
+
+    /**
+     * Hashes several passwords, submitting at most a small window of them at a time.
+     *
+     * @param rawPasswords The passwords to hash.
+     * @return The BCrypt hashes, in the same order as the passwords.
+     * @throws HashingCapacityExceededException If the hashing queue is full.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        List<String> hashes = new ArrayList<>(rawPasswords.size());
+        for (int from = 0; from < rawPasswords.size(); from += bulkWindow) {
+            List<Future<String>> window = new ArrayList<>(bulkWindow);
+            try {
+                for (String rawPassword : rawPasswords.subList(from, Math.min(from + bulkWindow, rawPasswords.size()))) {
+                    window.add(submit(rawPassword));
+                }
+            } catch (HashingCapacityExceededException e) {
+                window.forEach(future -> future.cancel(false));
+                throw e;
+            }
+            for (Future<String> future : window) {
+                hashes.add(await(future));
+            }
+        }
+        return hashes;
+    }
+
+    private Future<String> submit(String rawPassword) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return hashLatency.record(() -> passwordEncoder.encode(rawPassword));
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            LOGGER.warn("Password hashing queue is full, rejecting request");
+            throw new HashingCapacityExceededException("Password hashing capacity exceeded, please retry later", retryAfterSeconds);
+        }
+    }
+
+    private static String await(Future<String> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to hash password", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
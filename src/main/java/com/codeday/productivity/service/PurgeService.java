@@ -0,0 +1,201 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.exceptions.UserNotFoundException;
+import com.codeday.productivity.exceptions.UserStillActiveException;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class responsible for deleting goals and the data of deactivated users in the background.
+ *
+ * <p>
+ * Purges never load entities. Tasks, activities and goals are removed with set-based
+ * {@code DELETE ... WHERE ... LIMIT} statements on their foreign key columns, one chunk per
+ * statement. Each chunk commits on its own and the purge pauses between chunks, so a large
+ * purge never holds row locks on the hot tables for long and leaves room for regular traffic.
+ * </p>
+ *
+ * <p>
+ * Purges run one at a time on a single background thread; a purge requested while the same
+ * goal or user is already queued is ignored. Deleted data may stay visible until its purge has
+ * run. Scheduled purges are only kept in memory, so a purge cut short by a shutdown has to be
+ * requested again; running it twice is harmless.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Service
+public class PurgeService {
+
+    private static final Logger LOGGER = LogManager.getLogger(PurgeService.class);
+    private static final String ACTIVE_STATUS = "Y";
+    private static final String RECOMPUTE_ACTIVITY_DURATION = "UPDATE goal_tbl SET total_activity_duration = "
+            + "(SELECT COALESCE(SUM(duration), 0) FROM activity_tbl WHERE goal_id = goal_tbl.id) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OwnershipService ownershipService;
+    private final ActivityTimerRegistry timerRegistry;
+    private final ActivityRollupService rollupService;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final ExecutorService executor;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor to create the purge thread.
+     *
+     * @param jdbcTemplate       The JDBC template the delete statements run on.
+     * @param ownershipService   The ownership service whose cached goal owners are evicted.
+     * @param timerRegistry      The registry whose timers of deleted activities are discarded.
+     * @param rollupService      The service whose rollups of deleted activities are rebuilt.
+     * @param transactionManager The transaction manager the rollup rebuilds run in.
+     * @param chunkSize          The maximum number of rows deleted per statement.
+     * @param pause              The pause between two chunks.
+     */
+    @Autowired
+    public PurgeService(JdbcTemplate jdbcTemplate, OwnershipService ownershipService, ActivityTimerRegistry timerRegistry,
+                        ActivityRollupService rollupService, PlatformTransactionManager transactionManager,
+                        @Value("${productivity.purge.chunk-size:1000}") int chunkSize,
+                        @Value("${productivity.purge.pause:PT0.05S}") Duration pause) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Purge chunk size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownershipService = ownershipService;
+        this.timerRegistry = timerRegistry;
+        this.rollupService = rollupService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pause.toMillis();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules the deletion of a goal together with its tasks and activities.
+     *
+     * @param goalId The ID of the goal to delete.
+     */
+    public void purgeGoal(int goalId) {
+        submit("goal:" + goalId, () -> {
+            List<Integer> ownerIds = jdbcTemplate.queryForList("SELECT user_id FROM goal_tbl WHERE id = ?", Integer.class, goalId);
+            deleteGoal(goalId);
+            ownerIds.forEach(this::rebuildRollups);
+        });
+    }
+
+    /**
+     * Schedules the deletion of the goals, tasks and activities of a deactivated user. The user
+     * row itself is kept. Other users' goals the user logged activities against have their
+     * activity totals recomputed.
+     *
+     * @param userId The ID of the user whose data is deleted.
+     * @throws UserNotFoundException    If the user does not exist.
+     * @throws UserStillActiveException If the user has not been deactivated.
+     */
+    public void purgeUser(int userId) {
+        List<String> status = jdbcTemplate.queryForList("SELECT is_active FROM user_tbl WHERE id = ?", String.class, userId);
+        if (status.isEmpty()) {
+            throw new UserNotFoundException("User with ID " + userId + " does not exist.");
+        }
+        if (ACTIVE_STATUS.equals(status.get(0))) {
+            throw new UserStillActiveException("User with ID " + userId + " must be deactivated before being purged.");
+        }
+        submit("user:" + userId, () -> deleteUserData(userId));
+    }
+
+    private void submit(String key, Runnable purge) {
+        if (!pending.add(key)) {
+            LOGGER.info("Purge of {} is already scheduled", key);
+            return;
+        }
+        executor.execute(() -> {
+            long startedAt = System.nanoTime();
+            try {
+                purge.run();
+                LOGGER.info("Purged {} in {} ms", key, (System.nanoTime() - startedAt) / 1_000_000);
+            } catch (RuntimeException e) {
+                LOGGER.error("Purge of {} failed", key, e);
+            } finally {
+                pending.remove(key);
+            }
+        });
+        LOGGER.info("Scheduled purge of {}", key);
+    }
+
+    private void deleteUserData(int userId) {
+        List<Integer> goalIds = jdbcTemplate.queryForList("SELECT id FROM goal_tbl WHERE user_id = ?", Integer.class, userId);
+        for (int goalId : goalIds) {
+            deleteGoal(goalId);
+        }
+        // Any remaining activities of the user are on other users' goals, whose totals still count them
+        List<Integer> otherGoalIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT goal_id FROM activity_tbl WHERE user_id = ? AND goal_id IS NOT NULL", Integer.class, userId);
+        deleteInChunks("DELETE FROM activity_tbl WHERE user_id = ? LIMIT ?", userId);
+        for (int goalId : otherGoalIds) {
+            jdbcTemplate.update(RECOMPUTE_ACTIVITY_DURATION, goalId);
+        }
+        timerRegistry.discardUser(userId);
+        rebuildRollups(userId);
+    }
+
+    // Chunks commit one by one, so the owner's rollups are recomputed once the activities are gone
+    private void rebuildRollups(int userId) {
+        transaction.executeWithoutResult(status -> rollupService.rebuild(userId, userId));
+    }
+
+    private void deleteGoal(int goalId) {
+        deleteInChunks("DELETE FROM activity_tbl WHERE goal_id = ? LIMIT ?", goalId);
+        timerRegistry.discardGoal(goalId);
+        deleteInChunks("DELETE FROM task_tbl WHERE goal_id = ? LIMIT ?", goalId);
+        jdbcTemplate.update("DELETE FROM goal_tbl WHERE id = ?", goalId);
+        ownershipService.evictGoal(goalId);
+    }
+
+    private void deleteInChunks(String sql, int ownerId) {
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(sql, ownerId, chunkSize);
+            if (deleted == chunkSize) {
+                pause();
+            }
+        } while (deleted == chunkSize);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Purge interrupted", e);
+        }
+    }
+
+    /**
+     * Stops accepting purges and gives the running one a moment to finish its current chunk.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
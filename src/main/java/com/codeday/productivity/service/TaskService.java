@@ -3,51 +3,74 @@ package com.codeday.productivity.service;
 import com.codeday.productivity.entity.Goal;
 import com.codeday.productivity.entity.Task;
 import com.codeday.productivity.entity.User;
+import com.codeday.productivity.exceptions.UpdateConflictException;
+import com.codeday.productivity.model.CursorPage;
+import com.codeday.productivity.model.PageCursor;
+import com.codeday.productivity.model.TaskFilter;
+import com.codeday.productivity.model.TaskOperation;
+import com.codeday.productivity.model.TaskOperationResult;
+import com.codeday.productivity.model.TaskResponse;
+import com.codeday.productivity.repository.GoalRepository;
 import com.codeday.productivity.repository.TaskRepository;
 import java.time.Instant;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class TaskService {
 
+    private static final String TASK_SEARCH_ORDERING = "GOAL_ID:asc";
+
     private final TaskRepository taskRepository;
+    private final GoalRepository goalRepository;
+    private final TaskTimeAccumulator timeAccumulator;
+    private final PageSizePolicy pageSizePolicy;
+    private final int maxBulkOperations;
 
     @Autowired
-    public TaskService(TaskRepository taskRepository) {
+    public TaskService(TaskRepository taskRepository, GoalRepository goalRepository, TaskTimeAccumulator timeAccumulator,
+                       PageSizePolicy pageSizePolicy,
+                       @Value("${productivity.tasks.bulk.max-operations:1000}") int maxBulkOperations) {
         this.taskRepository = taskRepository;
+        this.goalRepository = goalRepository;
+        this.timeAccumulator = timeAccumulator;
+        this.pageSizePolicy = pageSizePolicy;
+        this.maxBulkOperations = maxBulkOperations;
     }
 
     public Task save(Task task) {
         return taskRepository.save(task);
     }
 
+    @Transactional
     public Task saveTaskForGoal(Goal goal, Task task) {
         task.setGoal(goal);
-        return taskRepository.save(task);
+        Task savedTask = taskRepository.save(task);
+        goalRepository.applyTaskDelta(goal.getId(), 1, isCompleted(savedTask) ? 1 : 0, savedTask.getTimeSpent());
+        return savedTask;
     }
 
     public List<Task> findByGoal(Goal goal) {
         return taskRepository.findByGoal(goal);
     }
 
-    // Add a task to a specific goal
+    // Add a task to a specific goal through the owning side, without loading the goal's task collection
+    @Transactional
     public Task addTaskToGoal(Goal goal, Task task) {
         task.setGoal(goal);
-
-        // Check if the goal already has tasks. If so, add the new task. If not, initialize and add.
-        if(goal.getTasks() != null) {
-            goal.getTasks().add(task);
-        } else {
-            List<Task> tasks = new ArrayList<>();
-            tasks.add(task);
-            goal.setTasks(tasks);
-        }
-
-        return taskRepository.save(task);
+        Task savedTask = taskRepository.save(task);
+        goalRepository.applyTaskDelta(goal.getId(), 1, isCompleted(savedTask) ? 1 : 0, savedTask.getTimeSpent());
+        return savedTask;
     }
 
     // Fetch all tasks associated with a specific goal
@@ -55,49 +78,252 @@ public class TaskService {
         return taskRepository.findByGoal(goal);
     }
 
-    public List<Task> getAllTasksByGoal(Goal goal) {
-        return taskRepository.findByGoal(goal);
+    public List<TaskResponse> getAllTasksByGoal(Goal goal) {
+        return taskRepository.findResponsesByGoalId(goal.getId());
     }
 
-    public Optional<Task> getTaskByGoalAndId(Goal goal, int id) {
-        return taskRepository.findByGoalAndId(goal, id);
+    public Optional<TaskResponse> getTaskByGoalAndId(Goal goal, int id) {
+        return taskRepository.findResponseByGoalIdAndId(goal.getId(), id);
     }
 
-    public Task updateTaskForGoal(Goal goal, Task updatedTask) {
-        Task task = taskRepository.findById(updatedTask.getId())
+    /**
+     * Renames a task with a single conditional update, without loading it first.
+     *
+     * @param goal            The goal the task must belong to.
+     * @param updatedTask     The task ID and the new title.
+     * @param expectedVersion The version the client last read, or null to update unconditionally.
+     * @return The updated task.
+     * @throws IllegalArgumentException If the goal has no task with that ID.
+     * @throws UpdateConflictException  If the task has changed since the expected version.
+     */
+    @Transactional
+    public TaskResponse updateTaskForGoal(Goal goal, Task updatedTask, Long expectedVersion) {
+        int taskId = updatedTask.getId();
+        // assuming a title field, update similar fields
+        int updated = taskRepository.updateTitle(goal.getId(), taskId, updatedTask.getTitle(), expectedVersion, Instant.now());
+        if (updated == 0) {
+            throw missingOrConflict(goal, taskId, expectedVersion);
+        }
+        return taskRepository.findResponseByGoalIdAndId(goal.getId(), taskId)
                 .orElseThrow(() -> new IllegalArgumentException("Task not found"));
-        if (!task.getGoal().equals(goal)) {
-            throw new IllegalArgumentException("Task does not belong to the specified goal");
+    }
+
+    // Time is accumulated in memory and added to the task and goal totals in the background
+    public void recordTimeSpent(Goal goal, int taskId, long timeSpent) {
+        if (timeSpent <= 0) {
+            throw new IllegalArgumentException("Time spent must be positive");
         }
-        task.setTitle(updatedTask.getTitle()); // assuming a title field, update similar fields
-        // ... add more fields to update if needed
-        return taskRepository.save(task);
+        timeAccumulator.record(goal.getId(), taskId, timeSpent);
     }
 
-    public Task recordTimeSpent(int taskId, long timeSpent) {
-        Task task = taskRepository.findById(taskId)
-                .orElseThrow(() -> new IllegalArgumentException("Task not found"));
-        task.setTimeSpent(task.getTimeSpent() + timeSpent);
-        return taskRepository.save(task);
+    /**
+     * Sets a task's completion status with a single conditional update, so concurrent requests
+     * never count the same change twice in the goal's totals.
+     *
+     * @param goal       The goal the task must belong to.
+     * @param taskId     The ID of the task.
+     * @param isComplete The new completion status.
+     * @return Whether the status changed; false if the task already had it.
+     * @throws IllegalArgumentException If the goal has no task with that ID.
+     */
+    @Transactional
+    public boolean markTaskAsComplete(Goal goal, int taskId, boolean isComplete) {
+        int updated = taskRepository.updateCompletion(goal.getId(), taskId, isComplete ? "Y" : "N", Instant.now());
+        if (updated == 0) {
+            if (!taskRepository.existsByGoalIdAndId(goal.getId(), taskId)) {
+                throw new IllegalArgumentException("Task not found");
+            }
+            return false;
+        }
+        goalRepository.applyTaskDelta(goal.getId(), 0, isComplete ? 1 : -1, 0);
+        return true;
     }
 
-    public Task markTaskAsComplete(int taskId, boolean isComplete) {
-        Task task = taskRepository.findById(taskId)
-                .orElseThrow(() -> new IllegalArgumentException("Task not found"));
-        task.setIsCompleted(isComplete ? "Y" : "N");
-        return taskRepository.save(task);
+    // Tells a missing task apart from an outdated version only after an update matched nothing
+    private RuntimeException missingOrConflict(Goal goal, int taskId, Long expectedVersion) {
+        if (expectedVersion != null && taskRepository.existsByGoalIdAndId(goal.getId(), taskId)) {
+            return new UpdateConflictException("Task " + taskId + " was changed by another request");
+        }
+        return new IllegalArgumentException("Task not found");
+    }
+
+    /**
+     * Retrieves one page of the tasks across a user's goals that match a filter, ordered by goal
+     * ID and then task ID.
+     *
+     * @param user   The user whose tasks are searched.
+     * @param filter The criteria the tasks must match; null fields are ignored.
+     * @param cursor The continuation token of the previous page, or null for the first page.
+     * @param limit  The requested page size, or null for the default.
+     * @return The page of tasks and the token of the next page, if any.
+     * @throws IllegalArgumentException If a date window is empty, or the cursor or page size is invalid.
+     */
+    public CursorPage<TaskResponse> filterTasks(User user, TaskFilter filter, String cursor, Integer limit) {
+        requireRange(filter.getStartFrom(), filter.getStartTo(), "Start");
+        requireRange(filter.getEndFrom(), filter.getEndTo(), "End");
+        int pageSize = pageSizePolicy.resolve(limit);
+
+        Integer afterGoalId = null;
+        int afterId = 0;
+        if (cursor != null) {
+            List<String> key = PageCursor.decode(cursor, TASK_SEARCH_ORDERING, 2);
+            try {
+                afterGoalId = Integer.parseInt(key.get(0));
+                afterId = Integer.parseInt(key.get(1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        List<TaskResponse> rows = taskRepository.findPageByUserIdAndFilter(user.getId(), filter, afterGoalId, afterId,
+                pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<TaskResponse> page = rows.subList(0, pageSize);
+        TaskResponse last = page.get(pageSize - 1);
+        String nextCursor = PageCursor.encode(TASK_SEARCH_ORDERING, last.getGoalId(), last.getId());
+        return new CursorPage<>(new ArrayList<>(page), nextCursor);
     }
 
-    public List<Task> filterTasks(User user, String completionStatus, Instant startDate, Instant endDate) {
-        return taskRepository.findByCompletionStatusAndDates(user, completionStatus, startDate, endDate);
+    private static void requireRange(Instant from, Instant to, String name) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException(name + " range start must be before range end");
+        }
     }
 
+    @Transactional
     public void deleteTaskByGoal(Goal goal, int taskId) {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new IllegalArgumentException("Task not found"));
-        if (!task.getGoal().equals(goal)) {
+        if (!belongsTo(task, goal)) {
             throw new IllegalArgumentException("Task does not belong to the specified goal");
         }
-        taskRepository.deleteById(taskId);
+        taskRepository.delete(task);
+        goalRepository.applyTaskDelta(goal.getId(), -1, isCompleted(task) ? -1 : 0, -task.getTimeSpent());
+    }
+
+    /**
+     * Applies a list of create, update, complete and delete operations to the tasks of a goal
+     * in one transaction. The referenced tasks are loaded and locked with a single query, and
+     * the resulting inserts, updates and deletes are flushed as JDBC batches. Since the tasks
+     * stay locked until the batch commits, concurrent writers wait for it rather than making it
+     * fail as a whole. Operations that are invalid, reference a task outside the goal or carry a
+     * version the task no longer has are reported without affecting the others.
+     *
+     * @param goal       The goal whose tasks are changed.
+     * @param operations The operations, applied in order.
+     * @return One result per operation, in the same order.
+     * @throws IllegalArgumentException If there are more operations than allowed per request.
+     */
+    @Transactional
+    public List<TaskOperationResult> applyOperations(Goal goal, List<TaskOperation> operations) {
+        if (operations.size() > maxBulkOperations) {
+            throw new IllegalArgumentException("At most " + maxBulkOperations + " operations are allowed per request");
+        }
+        Set<Integer> taskIds = operations.stream()
+                .map(TaskOperation::getTaskId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Integer, Task> tasks = new HashMap<>();
+        if (!taskIds.isEmpty()) {
+            taskRepository.findByGoalIdAndIdIn(goal.getId(), taskIds).forEach(task -> tasks.put(task.getId(), task));
+        }
+
+        List<TaskOperationResult> results = new ArrayList<>(operations.size());
+        List<Task> deletedTasks = new ArrayList<>();
+        int taskDelta = 0;
+        int completedDelta = 0;
+        long timeDelta = 0;
+        for (int index = 0; index < operations.size(); index++) {
+            TaskOperation operation = operations.get(index);
+            TaskOperation.Type type = operation.getType();
+            Integer taskId = operation.getTaskId();
+            if (type == null) {
+                results.add(TaskOperationResult.invalid(index, null, taskId, "Operation type is required"));
+                continue;
+            }
+            if (type == TaskOperation.Type.CREATE) {
+                if (operation.getTitle() == null || operation.getTitle().isBlank()) {
+                    results.add(TaskOperationResult.invalid(index, type, null, "Title is required"));
+                    continue;
+                }
+                Task task = new Task();
+                task.setIsCompleted("N");
+                applyFields(task, operation);
+                task.setGoal(goal);
+                Task savedTask = taskRepository.save(task);
+                taskDelta++;
+                completedDelta += isCompleted(savedTask) ? 1 : 0;
+                results.add(TaskOperationResult.ok(index, type, savedTask.getId()));
+                continue;
+            }
+            if (taskId == null) {
+                results.add(TaskOperationResult.invalid(index, type, null, "Task ID is required"));
+                continue;
+            }
+            Task task = tasks.get(taskId);
+            if (task == null) {
+                results.add(TaskOperationResult.notFound(index, type, taskId));
+                continue;
+            }
+            if (operation.getVersion() != null && operation.getVersion() != task.getVersion()) {
+                results.add(TaskOperationResult.conflict(index, type, taskId));
+                continue;
+            }
+            boolean wasComplete = isCompleted(task);
+            switch (type) {
+                case UPDATE -> applyFields(task, operation);
+                case COMPLETE -> task.setIsCompleted(Boolean.FALSE.equals(operation.getCompleted()) ? "N" : "Y");
+                case DELETE -> {
+                    tasks.remove(taskId);
+                    deletedTasks.add(task);
+                    taskDelta--;
+                    timeDelta -= task.getTimeSpent();
+                }
+                default -> throw new IllegalStateException("Unexpected operation type: " + type);
+            }
+            boolean isComplete = type != TaskOperation.Type.DELETE && isCompleted(task);
+            completedDelta += (isComplete ? 1 : 0) - (wasComplete ? 1 : 0);
+            results.add(TaskOperationResult.ok(index, type, taskId));
+        }
+
+        if (!deletedTasks.isEmpty()) {
+            taskRepository.deleteAll(deletedTasks);
+        }
+        if (taskDelta != 0 || completedDelta != 0 || timeDelta != 0) {
+            goalRepository.applyTaskDelta(goal.getId(), taskDelta, completedDelta, timeDelta);
+        }
+        return results;
+    }
+
+    private static void applyFields(Task task, TaskOperation operation) {
+        if (operation.getTitle() != null) {
+            task.setTitle(operation.getTitle());
+        }
+        if (operation.getDescription() != null) {
+            task.setDescription(operation.getDescription());
+        }
+        if (operation.getStartDate() != null) {
+            task.setStartDate(operation.getStartDate());
+        }
+        if (operation.getEndDate() != null) {
+            task.setEndDate(operation.getEndDate());
+        }
+        if (operation.getProgress() != null) {
+            task.setProgress(operation.getProgress());
+        }
+        if (operation.getCompleted() != null) {
+            task.setIsCompleted(operation.getCompleted() ? "Y" : "N");
+        }
+    }
+
+    // Compares by ID, since Goal equality would initialize and compare the goal's collections
+    private static boolean belongsTo(Task task, Goal goal) {
+        return task.getGoal().getId().equals(goal.getId());
+    }
+
+    private static boolean isCompleted(Task task) {
+        return "Y".equals(task.getIsCompleted());
     }
 }
\ No newline at end of file
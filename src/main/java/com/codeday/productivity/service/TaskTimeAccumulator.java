@@ -0,0 +1,241 @@
+package com.codeday.productivity.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind accumulator for time spent on tasks.
+ *
+ * <p>
+ * Recording time only adds the delta to an in-memory counter for the task, so timer ticks
+ * cost neither a read nor a row lock. Counters live in a {@link ConcurrentHashMap} whose
+ * per-bin locking stripes concurrent ticks across tasks; ticks for the same task are merged
+ * atomically and never lost. A background thread periodically drains the counters and writes
+ * them as two JDBC batches in one transaction: {@code time_spent = time_spent + ?} on the
+ * tasks, and the matching increment of the goals' accumulated task time.
+ * </p>
+ *
+ * <p>
+ * The drain runs every {@code flush-interval} and writes once the oldest pending delta is
+ * {@code max-staleness} old, or as soon as {@code max-pending} tasks have pending time, so a
+ * delta reaches the database at most about {@code max-staleness + flush-interval} after it
+ * was recorded. Deltas of a failed flush are put back and retried. Pending deltas are drained
+ * on shutdown.
+ * </p>
+ *
+ * <p>
+ * Time is kept per goal and task, and only written if the task belongs to that goal. Time for a
+ * task that is not in the goal it was recorded under is dropped, logged and counted in
+ * {@code productivity.task_time.dropped}.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Component
+public class TaskTimeAccumulator {
+
+    private static final Logger LOGGER = LogManager.getLogger(TaskTimeAccumulator.class);
+
+    private static final String UPDATE_TASK = "UPDATE task_tbl SET time_spent = time_spent + ? WHERE id = ? AND goal_id = ?";
+    private static final String UPDATE_GOAL = "UPDATE goal_tbl SET total_task_time = total_task_time + ? WHERE id = ?";
+    private static final long NO_PENDING = Long.MAX_VALUE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final long maxStalenessNanos;
+    private final int maxPending;
+    private final ScheduledExecutorService flusher;
+    private final Timer flushLatency;
+    private final Counter dropped;
+
+    // Keyed by goal ID and task ID, so a task ID recorded under the wrong goal never matches a row
+    private final ConcurrentHashMap<Long, Long> pending = new ConcurrentHashMap<>();
+    private final AtomicLong oldestPendingNanos = new AtomicLong(NO_PENDING);
+
+    /**
+     * Constructor to start the background flush and register the accumulator metrics.
+     *
+     * @param jdbcTemplate       The JDBC template the batches run on.
+     * @param transactionManager The transaction manager each flush runs in.
+     * @param registry           The meter registry the accumulator statistics are published to.
+     * @param flushInterval      How often pending time is checked and flushed.
+     * @param maxStaleness       How long recorded time may stay pending before it is flushed.
+     * @param maxPending         The number of tasks with pending time that triggers a flush.
+     */
+    @Autowired
+    public TaskTimeAccumulator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry registry,
+                               @Value("${productivity.tasks.time.flush-interval:PT0.5S}") Duration flushInterval,
+                               @Value("${productivity.tasks.time.max-staleness:PT5S}") Duration maxStaleness,
+                               @Value("${productivity.tasks.time.max-pending:500}") int maxPending) {
+        if (flushInterval.isNegative() || flushInterval.isZero() || maxStaleness.isNegative() || maxPending < 1) {
+            throw new IllegalArgumentException("Invalid task time flush settings");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.maxPending = maxPending;
+
+        Gauge.builder("productivity.task_time.pending", pending, Map::size)
+                .description("Tasks with recorded time not yet written to the database")
+                .register(registry);
+        this.flushLatency = Timer.builder("productivity.task_time.flush")
+                .description("Time spent writing pending task time to the database")
+                .register(registry);
+        this.dropped = Counter.builder("productivity.task_time.dropped")
+                .description("Recorded task time discarded because the task is not in the goal")
+                .register(registry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-time-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushIfDue, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds time spent on a task. The time is written to the database in the background.
+     *
+     * @param goalId    The ID of the goal the task belongs to.
+     * @param taskId    The ID of the task.
+     * @param timeSpent The time to add.
+     */
+    public void record(int goalId, int taskId, long timeSpent) {
+        pending.merge(key(goalId, taskId), timeSpent, Long::sum);
+        oldestPendingNanos.compareAndSet(NO_PENDING, System.nanoTime());
+    }
+
+    /**
+     * @return The number of tasks with time that has not been written yet.
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void flushIfDue() {
+        try {
+            long oldest = oldestPendingNanos.get();
+            if (oldest != NO_PENDING && (System.nanoTime() - oldest >= maxStalenessNanos || pending.size() >= maxPending)) {
+                flush();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to flush task time, will retry", e);
+        }
+    }
+
+    /**
+     * Writes all pending time to the database. Deltas recorded while the flush runs are kept
+     * for the next one; if the write fails, the drained deltas are put back.
+     */
+    public synchronized void flush() {
+        oldestPendingNanos.set(NO_PENDING);
+        List<long[]> drained = new ArrayList<>(pending.size());
+        for (Long key : pending.keySet()) {
+            Long delta = pending.remove(key);
+            if (delta != null && delta != 0) {
+                drained.add(new long[]{key, delta});
+            }
+        }
+        if (!pending.isEmpty()) {
+            oldestPendingNanos.compareAndSet(NO_PENDING, System.nanoTime());
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<long[]> unmatched;
+        try {
+            unmatched = flushLatency.record(() -> transaction.execute(status -> write(drained)));
+            LOGGER.debug("Flushed pending time of {} tasks", drained.size());
+        } catch (RuntimeException e) {
+            for (long[] entry : drained) {
+                pending.merge(entry[0], entry[1], Long::sum);
+            }
+            oldestPendingNanos.compareAndSet(NO_PENDING, System.nanoTime());
+            throw e;
+        }
+        for (long[] entry : unmatched) {
+            dropped.increment();
+            LOGGER.warn("Dropped {} of time recorded for task {} under goal {}, which it is not in",
+                    entry[1], taskId(entry[0]), goalId(entry[0]));
+        }
+    }
+
+    // Returns the entries whose task is not in the goal
+    private List<long[]> write(List<long[]> drained) {
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE_TASK, drained, drained.size(),
+                (statement, entry) -> {
+                    statement.setLong(1, entry[1]);
+                    statement.setInt(2, taskId(entry[0]));
+                    statement.setInt(3, goalId(entry[0]));
+                });
+
+        // Only goals whose task row actually matched get the time added to their total
+        Map<Integer, Long> goalDeltas = new HashMap<>();
+        List<long[]> unmatched = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : updated) {
+            for (int count : batch) {
+                long[] entry = drained.get(index++);
+                if (count != 0) {
+                    goalDeltas.merge(goalId(entry[0]), entry[1], Long::sum);
+                } else {
+                    unmatched.add(entry);
+                }
+            }
+        }
+        List<Map.Entry<Integer, Long>> goals = new ArrayList<>(goalDeltas.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_GOAL, goals, goals.size(),
+                (statement, entry) -> {
+                    statement.setLong(1, entry.getValue());
+                    statement.setInt(2, entry.getKey());
+                });
+        return unmatched;
+    }
+
+    /**
+     * Stops the background flush and writes everything still pending.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+        LOGGER.info("Drained pending task time on shutdown");
+    }
+
+    private static long key(int goalId, int taskId) {
+        return ((long) goalId << 32) | (taskId & 0xFFFFFFFFL);
+    }
+
+    private static int goalId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int taskId(long key) {
+        return (int) key;
+    }
+}
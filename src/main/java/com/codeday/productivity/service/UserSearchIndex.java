@@ -0,0 +1,404 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.model.UserSearchResult;
+import com.codeday.productivity.repository.UserRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index over user first names, last names and emails, used for
+ * search-as-you-type.
+ *
+ * <p>
+ * Every user is split into lower-cased tokens (name parts, the full email, the email's
+ * local-part segments and its domain) kept in a sorted map from token to user IDs. A prefix
+ * lookup is a range scan of that map, so a query costs a handful of map operations instead of
+ * a {@code LIKE '%x%'} scan of {@code USER_TBL}. Multi-word queries return users matching
+ * every word; results are ranked exact name matches first, then name prefixes, then email
+ * matches.
+ * </p>
+ *
+ * <p>
+ * One-word queries of up to {@value #RANKED_PREFIX_LENGTH} characters, the first keystrokes of
+ * a search and the ones matching the most users, are answered without scoring. Every prefix of
+ * that length or shorter keeps four sets of users, ordered by last name, first name and ID:
+ * those with a name token equal to it, with a name token starting with it, and the same for
+ * email tokens. Those are exactly the four score tiers of a one-word query, so reading the sets
+ * in tier order and stopping at the limit gives the exact top results in {@code O(limit)}.
+ * Longer words match few users. For them and for multi-word queries, every match must contain
+ * the query word with the fewest matching users, so only that word's users are scored, and all
+ * of them are, so the top results are exact.
+ * </p>
+ *
+ * <p>
+ * The index is built from the database in the background once the application is ready and
+ * is kept current by {@link UserService} whenever a user is saved or updated. Queries issued
+ * while the index is still warming only see the users indexed so far. Users indexed or removed
+ * after warming started are newer than the rows being streamed, so warming skips them.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger(UserSearchIndex.class);
+
+    private static final int EXACT_NAME = 4;
+    private static final int NAME_PREFIX = 3;
+    private static final int EXACT_EMAIL = 2;
+    private static final int EMAIL_PREFIX = 1;
+
+    /**
+     * The longest one-word query answered from the rank-ordered prefix sets.
+     */
+    static final int RANKED_PREFIX_LENGTH = 3;
+
+    /**
+     * Key prefixes of the rank-ordered sets, in the order of the score tiers they hold.
+     */
+    private static final String NAME_EQUALS = "n=";
+    private static final String NAME_STARTS = "n:";
+    private static final String EMAIL_EQUALS = "e=";
+    private static final String EMAIL_STARTS = "e:";
+    private static final List<String> TIERS = List.of(NAME_EQUALS, NAME_STARTS, EMAIL_EQUALS, EMAIL_STARTS);
+
+    /**
+     * Order of users within one score tier: last name, first name and ID.
+     */
+    private static final Comparator<UserSearchResult> NAME_ORDER = Comparator
+            .comparing((UserSearchResult user) -> nullToEmpty(user.getLastName()))
+            .thenComparing(user -> nullToEmpty(user.getFirstName()))
+            .thenComparing(UserSearchResult::getId);
+
+    /**
+     * Best match first: higher score, then last name, first name and ID.
+     */
+    private static final Comparator<ScoredUser> RANKING = Comparator.comparingInt(ScoredUser::score).reversed()
+            .thenComparing(ScoredUser::user, NAME_ORDER);
+
+    private final UserRepository repository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final NavigableMap<String, Set<Integer>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Integer, Document> documents = new ConcurrentHashMap<>();
+    // Users of each short prefix and score tier, keyed by tier key prefix and prefix, in NAME_ORDER
+    private final Map<String, NavigableSet<UserSearchResult>> ranked = new ConcurrentHashMap<>();
+
+    /**
+     * IDs indexed or removed since warming started, or null when not warming.
+     */
+    private Set<Integer> changedWhileWarming;
+
+    /**
+     * Constructor to initialize the index dependencies.
+     *
+     * @param repository         The user repository the index is built from.
+     * @param transactionManager The transaction manager used to stream users while warming.
+     */
+    @Autowired
+    public UserSearchIndex(UserRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Starts building the index from {@code USER_TBL} in the background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmInBackground() {
+        Thread warmer = new Thread(this::warm, "user-search-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    void warm() {
+        synchronized (this) {
+            changedWhileWarming = new HashSet<>();
+        }
+        try {
+            long started = System.nanoTime();
+            AtomicLong count = new AtomicLong();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<UserSearchResult> users = repository.streamSearchEntries()) {
+                    users.forEach(user -> {
+                        if (indexWarmed(user)) {
+                            count.incrementAndGet();
+                        }
+                    });
+                }
+            });
+            LOGGER.info("User search index built with {} users and {} tokens in {} ms",
+                    count.get(), postings.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to build user search index", e);
+        } finally {
+            synchronized (this) {
+                changedWhileWarming = null;
+            }
+        }
+    }
+
+    /**
+     * Indexes a streamed user unless it was indexed or removed since warming started.
+     */
+    private synchronized boolean indexWarmed(UserSearchResult user) {
+        if (user.getId() == null || changedWhileWarming.contains(user.getId())) {
+            return false;
+        }
+        put(user);
+        return true;
+    }
+
+    /**
+     * Adds a user to the index, replacing any previously indexed version of it.
+     *
+     * @param user The user's ID, names and email.
+     */
+    public synchronized void index(UserSearchResult user) {
+        if (user.getId() == null) {
+            return;
+        }
+        if (changedWhileWarming != null) {
+            changedWhileWarming.add(user.getId());
+        }
+        put(user);
+    }
+
+    private void put(UserSearchResult user) {
+        unindex(user.getId());
+
+        Map<String, Integer> tokens = new HashMap<>();
+        addTokens(tokens, user.getFirstName(), "[\\s\\-']+", EXACT_NAME);
+        addTokens(tokens, user.getLastName(), "[\\s\\-']+", EXACT_NAME);
+        if (user.getEmail() != null) {
+            String email = normalize(user.getEmail());
+            addToken(tokens, email, EXACT_EMAIL);
+            int at = email.indexOf('@');
+            if (at > 0) {
+                addTokens(tokens, email.substring(0, at), "[._+\\-]+", EXACT_EMAIL);
+                addToken(tokens, email.substring(at + 1), EXACT_EMAIL);
+            }
+        }
+
+        Document document = new Document(user, Map.copyOf(tokens));
+        documents.put(user.getId(), document);
+        for (String token : tokens.keySet()) {
+            postings.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(user.getId());
+        }
+        for (String key : rankedKeys(tokens)) {
+            ranked.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(NAME_ORDER)).add(user);
+        }
+    }
+
+    /**
+     * Removes a user from the index.
+     *
+     * @param id The ID of the user to remove.
+     */
+    public synchronized void remove(int id) {
+        if (changedWhileWarming != null) {
+            changedWhileWarming.add(id);
+        }
+        unindex(id);
+    }
+
+    private void unindex(int id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String token : previous.tokens().keySet()) {
+            postings.computeIfPresent(token, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        for (String key : rankedKeys(previous.tokens())) {
+            ranked.computeIfPresent(key, (k, users) -> {
+                users.remove(previous.user());
+                return users.isEmpty() ? null : users;
+            });
+        }
+    }
+
+    /**
+     * Returns the keys of the rank-ordered sets a user with these tokens belongs to.
+     */
+    private static Set<String> rankedKeys(Map<String, Integer> tokens) {
+        Set<String> keys = new HashSet<>();
+        for (Map.Entry<String, Integer> token : tokens.entrySet()) {
+            boolean name = token.getValue() == EXACT_NAME;
+            String text = token.getKey();
+            if (text.length() <= RANKED_PREFIX_LENGTH) {
+                keys.add((name ? NAME_EQUALS : EMAIL_EQUALS) + text);
+            }
+            for (int length = 1; length <= Math.min(text.length(), RANKED_PREFIX_LENGTH); length++) {
+                keys.add((name ? NAME_STARTS : EMAIL_STARTS) + text.substring(0, length));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the best matching users for a typeahead query.
+     *
+     * @param query The text typed so far; every word must prefix-match a name or email token.
+     * @param limit The maximum number of results.
+     * @return Up to {@code limit} users, best match first.
+     */
+    public List<UserSearchResult> search(String query, int limit) {
+        List<String> terms = query == null ? List.of() : Arrays.stream(normalize(query).split("\\s+"))
+                .filter(term -> !term.isEmpty())
+                .toList();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        if (terms.size() == 1 && terms.get(0).length() <= RANKED_PREFIX_LENGTH) {
+            return searchShortPrefix(terms.get(0), limit);
+        }
+
+        // Every match prefix-matches every term, so the users of the most selective term are all candidates
+        Set<Integer> candidates = null;
+        for (String term : terms) {
+            Set<Integer> ids = new HashSet<>();
+            for (Set<Integer> tokenIds : prefixRange(term).values()) {
+                ids.addAll(tokenIds);
+                if (candidates != null && ids.size() >= candidates.size()) {
+                    break;
+                }
+            }
+            if (candidates == null || ids.size() < candidates.size()) {
+                candidates = ids;
+            }
+        }
+
+        // Keep only the best {@code limit} matches in a min-heap ordered worst-first
+        PriorityQueue<ScoredUser> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (Integer id : candidates) {
+            Document document = documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            int score = score(document, terms);
+            if (score > 0) {
+                best.add(new ScoredUser(document.user(), score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<ScoredUser> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        return ranked.stream().map(ScoredUser::user).toList();
+    }
+
+    /**
+     * Reads the score tiers of a short one-word query best first, stopping at the limit. A user
+     * in several tiers was already taken from the best of them.
+     */
+    private List<UserSearchResult> searchShortPrefix(String term, int limit) {
+        if (limit < 1) {
+            return List.of();
+        }
+        List<UserSearchResult> results = new ArrayList<>(limit);
+        Set<Integer> taken = new HashSet<>();
+        for (String tier : TIERS) {
+            NavigableSet<UserSearchResult> users = ranked.get(tier + term);
+            if (users == null) {
+                continue;
+            }
+            for (UserSearchResult user : users) {
+                if (taken.add(user.getId())) {
+                    results.add(user);
+                    if (results.size() == limit) {
+                        return results;
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Scores a document against every query term, or returns 0 if any term does not match.
+     */
+    private static int score(Document document, List<String> terms) {
+        int total = 0;
+        for (String term : terms) {
+            int best = 0;
+            for (Map.Entry<String, Integer> token : document.tokens().entrySet()) {
+                if (!token.getKey().startsWith(term)) {
+                    continue;
+                }
+                int weight = token.getValue();
+                int score = token.getKey().length() == term.length() ? weight : weight == EXACT_NAME ? NAME_PREFIX : EMAIL_PREFIX;
+                best = Math.max(best, score);
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private NavigableMap<String, Set<Integer>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static void addTokens(Map<String, Integer> tokens, String value, String separator, int weight) {
+        if (value == null) {
+            return;
+        }
+        for (String part : normalize(value).split(separator)) {
+            addToken(tokens, part, weight);
+        }
+    }
+
+    private static void addToken(Map<String, Integer> tokens, String token, int weight) {
+        if (!token.isBlank()) {
+            tokens.merge(token, weight, Math::max);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private record Document(UserSearchResult user, Map<String, Integer> tokens) {
+    }
+
+    private record ScoredUser(UserSearchResult user, int score) {
+    }
+}
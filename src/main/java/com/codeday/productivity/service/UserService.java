@@ -1,18 +1,35 @@
 package com.codeday.productivity.service;
 
+import com.codeday.productivity.cache.CachedUser;
+import com.codeday.productivity.cache.ExpiringLruCache;
+import com.codeday.productivity.exceptions.HashingCapacityExceededException;
 import com.codeday.productivity.exceptions.UserAlreadyExistsException;
 import com.codeday.productivity.exceptions.UserNotFoundException;
 import com.codeday.productivity.model.CreateUserRequest;
+import com.codeday.productivity.model.CursorPage;
+import com.codeday.productivity.model.PageCursor;
+import com.codeday.productivity.model.UserImportResult;
+import com.codeday.productivity.model.UserResponse;
+import com.codeday.productivity.model.UserSearchResult;
 import com.codeday.productivity.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import com.codeday.productivity.entity.User;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -38,18 +55,45 @@ public class UserService {
 
     private static final Logger LOGGER = LogManager.getLogger(UserService.class);
     private final UserRepository repository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashingService hashingService;
+    private final PageSizePolicy pageSizePolicy;
+    private final ExpiringLruCache<Integer, CachedUser> userCache;
+    private final EmailMembershipFilter emailFilter;
+    private final UserSearchIndex searchIndex;
     private static final String DEACTIVATED_STATUS = "N";
 
+    /**
+     * Maximum number of email addresses sent in a single duplicate-detection {@code IN} query,
+     * and number of users written per {@code saveAll} call during bulk imports.
+     */
+    private final int importChunkSize;
+
     /**
      * Constructs a UserService with the specified UserRepository.
      *
-     * @param repository The UserRepository to use for CRUD operations.
+     * @param repository      The UserRepository to use for CRUD operations.
+     * @param hashingService  The bounded worker pool used to hash passwords.
+     * @param pageSizePolicy  The policy that bounds the page size of user listings.
+     * @param userCache       The read-through cache of the users known to exist.
+     * @param emailFilter     The in-memory filter used to skip duplicate lookups for new emails.
+     * @param searchIndex     The in-memory prefix index backing the user typeahead search.
+     * @param importChunkSize The number of users checked for duplicates and written per chunk of a bulk import.
+     * @throws IllegalArgumentException If the chunk size is not positive.
      */
     @Autowired
-    public UserService(UserRepository repository, BCryptPasswordEncoder passwordEncoder) {
+    public UserService(UserRepository repository, PasswordHashingService hashingService, PageSizePolicy pageSizePolicy, ExpiringLruCache<Integer, CachedUser> userCache,
+                       EmailMembershipFilter emailFilter, UserSearchIndex searchIndex,
+                       @Value("${productivity.users.import.chunk-size:500}") int importChunkSize) {
+        if (importChunkSize < 1) {
+            throw new IllegalArgumentException("User import chunk size must be positive");
+        }
         this.repository = repository;
-        this.passwordEncoder = passwordEncoder;
+        this.hashingService = hashingService;
+        this.pageSizePolicy = pageSizePolicy;
+        this.userCache = userCache;
+        this.emailFilter = emailFilter;
+        this.searchIndex = searchIndex;
+        this.importChunkSize = importChunkSize;
     }
 
     /**
@@ -59,6 +103,7 @@ public class UserService {
      * @return The saved User entity.
      * @throws IllegalArgumentException if the password is null or empty.
      * @throws UserAlreadyExistsException if a user with the given email already exists.
+     * @throws HashingCapacityExceededException if the password hashing queue is full.
      */
     public User saveUser(CreateUserRequest createUserRequest) {
         // Log the validation attempt
@@ -77,7 +122,7 @@ public class UserService {
         user.setEmail(createUserRequest.getEmail());
 
         // Encode the password before saving
-        user.setPassword(passwordEncoder.encode(createUserRequest.getPassword()));
+        user.setPassword(hashingService.encode(createUserRequest.getPassword()));
 
         // Set timestamps for when the user is created and last updated
         Instant now = Instant.now();
@@ -85,38 +130,50 @@ public class UserService {
         user.setLastUpdated(now);
 
         LOGGER.info("Attempting to save new user with email: {}", user.getEmail());
-        Optional<User> existingUserByEmail = repository.findByEmail(user.getEmail());
+        if (emailFilter.mightContain(user.getEmail())) {
+            Optional<User> existingUserByEmail = repository.findByEmail(user.getEmail());
 
-        if (existingUserByEmail.isPresent()) {
-            // If the email is already in use, throw an exception
-            throw new UserAlreadyExistsException("User with email " + user.getEmail() + " already exists.");
+            if (existingUserByEmail.isPresent()) {
+                // If the email is already in use, throw an exception
+                emailFilter.recordConfirmedHits(1);
+                throw new UserAlreadyExistsException("User with email " + user.getEmail() + " already exists.");
+            }
         }
 
-        // Save the user to the database and return the saved entity
-        return repository.save(user);
+        // Save the user to the database; the unique constraint on the email stays authoritative
+        User savedUser;
+        try {
+            savedUser = repository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new UserAlreadyExistsException("User with email " + user.getEmail() + " already exists.");
+        }
+        onUserSaved(savedUser);
+        return savedUser;
     }
 
     /**
      * Saves a list of new user entities to the database.
+     * <p>
+     * Duplicate emails are detected with chunked {@code IN} queries and passwords are hashed
+     * on the bounded hashing pool before the users are written with batched inserts.
+     * </p>
      *
      * @param users The list of User entities to save.
      * @return The list of saved User entities.
      */
     public List<User> saveUsers(List<User> users) {
-        LOGGER.info("Attempting to save a list of users");
+        LOGGER.info("Attempting to save a list of {} users", users.size());
 
+        Set<String> existingEmails = findExistingEmails(users.stream().map(User::getEmail).toList());
         List<User> savedUsers = new ArrayList<>();
         List<String> duplicateUsers = new ArrayList<>();
 
         for (User user : users) {
-            Optional<User> existingUserByEmail = repository.findByEmail(user.getEmail());
-
-            if (existingUserByEmail.isPresent()) {
+            if (existingEmails.contains(normalizeEmail(user.getEmail()))) {
                 LOGGER.warn("Skipping user with duplicate email: {}", user.getEmail());
                 duplicateUsers.add(user.getEmail());
                 continue;
             }
-            user.setPassword(passwordEncoder.encode(user.getPassword()));
             savedUsers.add(user);
         }
 
@@ -124,57 +181,314 @@ public class UserService {
             LOGGER.warn("Found duplicate users: {}", String.join(", ", duplicateUsers));
         }
 
-        List<User> result = repository.saveAll(savedUsers);
+        List<String> hashes = hashingService.encodeAll(savedUsers.stream().map(User::getPassword).toList());
+        for (int i = 0; i < savedUsers.size(); i++) {
+            savedUsers.get(i).setPassword(hashes.get(i));
+        }
+
+        List<User> result = new ArrayList<>(savedUsers.size());
+        for (int from = 0; from < savedUsers.size(); from += importChunkSize) {
+            result.addAll(repository.saveAll(savedUsers.subList(from, Math.min(from + importChunkSize, savedUsers.size()))));
+        }
+        result.forEach(this::onUserSaved);
         LOGGER.info("Successfully saved {} users", result.size());
 
         return result;
     }
 
     /**
-     * Retrieves a list of all users from the database.
+     * Imports a batch of users and reports the outcome of every row.
+     * <p>
+     * Rows with missing fields are reported as {@link UserImportResult.Status#INVALID}. Rows whose
+     * email is already registered, or repeated earlier in the same batch, are reported as
+     * {@link UserImportResult.Status#DUPLICATE}. All remaining rows are created.
+     * </p>
      *
-     * @return A list of all User entities.
+     * @param requests The users to import, in the order they were received.
+     * @return One {@link UserImportResult} per request, in request order.
      */
-    public List<User> getUsers() {
-        LOGGER.info("Fetching all users");
-        return repository.findAll();
+    public List<UserImportResult> importUsers(List<CreateUserRequest> requests) {
+        LOGGER.info("Attempting to import a batch of {} users", requests.size());
+
+        UserImportResult[] results = new UserImportResult[requests.size()];
+        Map<String, Integer> candidateRows = new HashMap<>();
+
+        for (int row = 0; row < requests.size(); row++) {
+            CreateUserRequest request = requests.get(row);
+            String error = validate(request);
+            if (error != null) {
+                results[row] = UserImportResult.invalid(row, request == null ? null : request.getEmail(), error);
+            } else if (candidateRows.putIfAbsent(normalizeEmail(request.getEmail()), row) != null) {
+                results[row] = UserImportResult.duplicate(row, request.getEmail());
+            }
+        }
+
+        Set<String> existingEmails = findExistingEmails(candidateRows.keySet());
+        List<Integer> rowsToCreate = new ArrayList<>();
+        for (int row = 0; row < requests.size(); row++) {
+            if (results[row] != null) {
+                continue;
+            }
+            if (existingEmails.contains(normalizeEmail(requests.get(row).getEmail()))) {
+                results[row] = UserImportResult.duplicate(row, requests.get(row).getEmail());
+            } else {
+                rowsToCreate.add(row);
+            }
+        }
+
+        List<String> hashes = hashingService.encodeAll(rowsToCreate.stream().map(row -> requests.get(row).getPassword()).toList());
+        List<User> users = new ArrayList<>(rowsToCreate.size());
+        Instant now = Instant.now();
+        for (int i = 0; i < rowsToCreate.size(); i++) {
+            CreateUserRequest request = requests.get(rowsToCreate.get(i));
+            User user = new User();
+            user.setFirstName(request.getFirstName());
+            user.setLastName(request.getLastName());
+            user.setEmail(request.getEmail().trim());
+            user.setPassword(hashes.get(i));
+            user.setCreatedOn(now);
+            user.setLastUpdated(now);
+            users.add(user);
+        }
+
+        for (int from = 0; from < users.size(); from += importChunkSize) {
+            int to = Math.min(from + importChunkSize, users.size());
+            saveImportChunk(users.subList(from, to), rowsToCreate.subList(from, to), results);
+        }
+
+        long created = rowsToCreate.stream().filter(row -> results[row].getStatus() == UserImportResult.Status.CREATED).count();
+        LOGGER.info("Imported {} of {} users", created, requests.size());
+        return List.of(results);
+    }
+
+    /**
+     * Writes one chunk of imported users with a single batched {@code saveAll}. If the chunk
+     * collides with a concurrent insert on the unique email constraint, the rows are retried
+     * one at a time so only the conflicting rows are reported as duplicates.
+     */
+    private void saveImportChunk(List<User> users, List<Integer> rows, UserImportResult[] results) {
+        try {
+            List<User> saved = repository.saveAll(users);
+            saved.forEach(this::onUserSaved);
+            for (int i = 0; i < saved.size(); i++) {
+                results[rows.get(i)] = UserImportResult.created(rows.get(i), saved.get(i).getEmail(), saved.get(i).getId());
+            }
+        } catch (DataIntegrityViolationException e) {
+            LOGGER.warn("Batch insert of {} users hit a constraint violation, retrying row by row", users.size());
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                user.setId(null);
+                try {
+                    User saved = repository.save(user);
+                    onUserSaved(saved);
+                    results[rows.get(i)] = UserImportResult.created(rows.get(i), saved.getEmail(), saved.getId());
+                } catch (DataIntegrityViolationException rowException) {
+                    results[rows.get(i)] = UserImportResult.duplicate(rows.get(i), user.getEmail());
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings the in-memory user cache, email filter and search index up to date with a newly created user.
+     */
+    private void onUserSaved(User user) {
+        userCache.put(user.getId(), CachedUser.of(user));
+        emailFilter.add(user.getEmail());
+        searchIndex.index(toSearchResult(user));
+    }
+
+    private static UserSearchResult toSearchResult(User user) {
+        return new UserSearchResult(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail());
+    }
+
+    /**
+     * Returns a validation error for the request, or {@code null} if it can be imported.
+     */
+    private String validate(CreateUserRequest request) {
+        if (request == null) {
+            return "Row cannot be empty";
+        }
+        if (isBlank(request.getFirstName())) {
+            return "First name cannot be null or empty";
+        }
+        if (isBlank(request.getLastName())) {
+            return "Last name cannot be null or empty";
+        }
+        if (isBlank(request.getEmail())) {
+            return "Email cannot be null or empty";
+        }
+        if (request.getPassword() == null || request.getPassword().isEmpty()) {
+            return "Password cannot be null or empty";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Normalizes an email for duplicate detection. The email column compares case-insensitively,
+     * so duplicates are detected on the trimmed, lower-cased address.
+     */
+    private static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Looks up which of the given emails are already registered. Emails the membership filter
+     * rules out are skipped; the rest are checked with one {@code IN} query per import chunk of
+     * addresses.
+     *
+     * @return The normalized emails that already exist.
+     */
+    private Set<String> findExistingEmails(Collection<String> emails) {
+        List<String> candidates = emails.stream()
+                .filter(email -> email != null && !email.isBlank())
+                .map(String::trim)
+                .distinct()
+                .filter(emailFilter::mightContain)
+                .toList();
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += importChunkSize) {
+            List<String> chunk = candidates.subList(from, Math.min(from + importChunkSize, candidates.size()));
+            repository.findExistingEmails(chunk).forEach(email -> existing.add(normalizeEmail(email)));
+        }
+        emailFilter.recordConfirmedHits(existing.size());
+        return existing;
+    }
+
+    /**
+     * Orderings supported by the keyset-paginated user listing.
+     */
+    public enum PageOrder {
+        /** Ordered by ID. */
+        ID,
+        /** Ordered by last name, then first name, then ID. */
+        NAME
+    }
+
+    /**
+     * Retrieves one page of users, optionally filtered by first or last name, using keyset
+     * pagination. Only one of {@code firstName} and {@code lastName} may be supplied.
+     *
+     * @param firstName The first name to filter by, or {@code null}.
+     * @param lastName  The last name to filter by, or {@code null}.
+     * @param order     The ordering to page through.
+     * @param cursor    The continuation token of the previous page, or {@code null} for the first page.
+     * @param limit     The requested page size, or {@code null} for the default.
+     * @return The page of users and the continuation token of the next page.
+     * @throws IllegalArgumentException If the cursor or page size is invalid.
+     */
+    public CursorPage<UserResponse> getUsersPage(String firstName, String lastName, PageOrder order, String cursor, Integer limit) {
+        LOGGER.info("Fetching users page ordered by {} filtered by firstName: {}, lastName: {}", order, firstName, lastName);
+        int pageSize = pageSizePolicy.resolve(limit);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        String ordering = order.name() + (firstName != null ? ":first" : lastName != null ? ":last" : "");
+
+        List<UserResponse> rows;
+        if (order == PageOrder.ID) {
+            int afterId = cursor == null ? 0 : parseId(PageCursor.decode(cursor, ordering, 1).get(0));
+            if (firstName != null) {
+                rows = repository.findPageByFirstNameOrderById(firstName, afterId, pageable);
+            } else if (lastName != null) {
+                rows = repository.findPageByLastNameOrderById(lastName, afterId, pageable);
+            } else {
+                rows = repository.findPageOrderById(afterId, pageable);
+            }
+        } else {
+            List<String> key = cursor == null ? List.of("", "", "0") : PageCursor.decode(cursor, ordering, 3);
+            int afterId = parseId(key.get(2));
+            if (firstName != null) {
+                rows = repository.findPageByFirstNameOrderByName(firstName, key.get(0), afterId, pageable);
+            } else if (lastName != null) {
+                rows = repository.findPageByLastNameOrderByName(lastName, key.get(1), afterId, pageable);
+            } else {
+                rows = repository.findPageOrderByName(key.get(0), key.get(1), afterId, pageable);
+            }
+        }
+
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<UserResponse> page = rows.subList(0, pageSize);
+        UserResponse last = page.get(pageSize - 1);
+        String nextCursor = order == PageOrder.ID
+                ? PageCursor.encode(ordering, last.getId())
+                : PageCursor.encode(ordering, last.getLastName(), last.getFirstName(), last.getId());
+        return new CursorPage<>(new ArrayList<>(page), nextCursor);
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Searches users by name or email prefix for typeahead suggestions.
+     *
+     * @param query The text typed so far.
+     * @param limit The maximum number of suggestions.
+     * @return Up to {@code limit} matching users, best match first.
+     */
+    public List<UserSearchResult> searchUsers(String query, int limit) {
+        return searchIndex.search(query, limit);
     }
 
     /**
      * Retrieves a user entity by its ID.
+     * <p>
+     * Lookups are read-through cached: when the user is known to exist, an uninitialized
+     * reference is returned without querying {@code USER_TBL}. The reference is only meant for
+     * associating other entities with the user and reading its ID; callers that read any other
+     * field must use {@link #loadUserById(int)} instead.
+     * </p>
      *
      * @param id The ID of the user to retrieve.
-     * @return The User entity with the specified ID.
+     * @return The User entity, or a reference to it, with the specified ID.
      * @throws UserNotFoundException If the user with the specified ID does not exist.
      */
     public User getUserById(int id) {
-        LOGGER.info("Fetching user by ID: {}", id);
-        return repository.findById(id).orElseThrow(() -> {
-            LOGGER.warn("User with ID {} does not exist", id);
-            return new UserNotFoundException("User with ID " + id + " does not exist.");
-        });
+        if (userCache.get(id) != null) {
+            return repository.getReferenceById(id);
+        }
+        User user = loadUserById(id);
+        userCache.put(id, CachedUser.of(user));
+        return user;
     }
 
     /**
-     * Retrieves users with the specified first name.
+     * Retrieves a user by its ID as a response DTO, selecting only the columns it needs.
      *
-     * @param firstName The first name to search for.
-     * @return A list of users with the specified first name.
+     * @param id The ID of the user to retrieve.
+     * @return The {@link UserResponse} of the user with the specified ID.
+     * @throws UserNotFoundException If the user with the specified ID does not exist.
      */
-    public List<User> getUsersByFirstName(String firstName) {
-        LOGGER.info("Fetching users by first name: {}", firstName);
-        return repository.findByFirstName(firstName);
+    public UserResponse getUserResponseById(int id) {
+        LOGGER.debug("Fetching user response by ID: {}", id);
+        return repository.findResponseById(id).orElseThrow(() -> {
+            LOGGER.warn("User with ID {} does not exist", id);
+            return new UserNotFoundException("User with ID " + id + " does not exist.");
+        });
     }
 
     /**
-     * Retrieves users with the specified last name.
+     * Loads the full user entity with the specified ID from the database, bypassing the cache.
      *
-     * @param lastName The last name to search for.
-     * @return A list of users with the specified last name.
+     * @param id The ID of the user to load.
+     * @return The User entity with the specified ID.
+     * @throws UserNotFoundException If the user with the specified ID does not exist.
      */
-    public List<User> getUsersByLastName(String lastName) {
-        LOGGER.info("Fetching users by last name: {}", lastName);
-        return repository.findByLastName(lastName);
+    public User loadUserById(int id) {
+        LOGGER.debug("Fetching user by ID: {}", id);
+        return repository.findById(id).orElseThrow(() -> {
+            LOGGER.warn("User with ID {} does not exist", id);
+            return new UserNotFoundException("User with ID " + id + " does not exist.");
+        });
     }
 
     /**
@@ -224,7 +538,7 @@ public class UserService {
         }
 
         if (user.getPassword() != null) {
-            updatedUser.setPassword(passwordEncoder.encode(user.getPassword()));
+            updatedUser.setPassword(hashingService.encode(user.getPassword()));
             LOGGER.debug("Updated and hashed password for user with ID: {}", user.getId());
         }
 
@@ -234,6 +548,9 @@ public class UserService {
         }
 
         User savedUser = repository.save(updatedUser);
+        userCache.invalidate(savedUser.getId());
+        emailFilter.add(savedUser.getEmail());
+        searchIndex.index(toSearchResult(savedUser));
         LOGGER.info("Successfully updated user with ID: {}", savedUser.getId());
 
         return savedUser;
@@ -255,6 +572,7 @@ public class UserService {
         User user = existingUser.get();
         user.setIsActive(DEACTIVATED_STATUS);
         repository.save(user);
+        userCache.invalidate(id);
         LOGGER.info("Successfully deactivated user with ID: {}", id);
         return "User deactivated || " + id;
     }
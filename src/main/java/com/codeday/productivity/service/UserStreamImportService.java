@@ -0,0 +1,242 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.exceptions.HashingCapacityExceededException;
+import com.codeday.productivity.model.CreateUserRequest;
+import com.codeday.productivity.model.UserImportProgress;
+import com.codeday.productivity.model.UserImportResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Service class responsible for streaming user imports.
+ *
+ * <p>
+ * The input is read one line at a time as NDJSON or CSV and persisted in fixed-size chunks
+ * through {@link UserService#importUsers(List)}, so memory use is bounded by the chunk size
+ * rather than the size of the upload. Per-row errors and a progress record per chunk are
+ * written to the output as NDJSON while the import runs.
+ * </p>
+ *
+ * @author Nahom Alemu
+ */
+@Service
+public class UserStreamImportService {
+
+    /**
+     * Supported input formats.
+     */
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final Logger LOGGER = LogManager.getLogger(UserStreamImportService.class);
+    private static final List<String> CSV_COLUMNS = List.of("firstname", "lastname", "email", "password");
+
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    /**
+     * Constructor to initialize the import dependencies.
+     *
+     * @param userService  The user service that validates and persists each chunk.
+     * @param objectMapper The mapper used to read NDJSON rows and write NDJSON results.
+     * @param chunkSize    The number of rows persisted per chunk.
+     * @throws IllegalArgumentException If the chunk size is not positive.
+     */
+    @Autowired
+    public UserStreamImportService(UserService userService, ObjectMapper objectMapper,
+                                   @Value("${productivity.users.import.chunk-size:500}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("User import chunk size must be positive");
+        }
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports users from the given input, writing per-row errors and progress to the output.
+     *
+     * @param input  The NDJSON or CSV input, read incrementally.
+     * @param format The format of the input.
+     * @param output The writer that receives NDJSON result records.
+     * @return The final summary of the import.
+     * @throws IOException If reading the input or writing the output fails.
+     * @throws IllegalArgumentException If a CSV input has a missing or unusable header.
+     */
+    public UserImportProgress importUsers(BufferedReader input, Format format, Writer output) throws IOException {
+        LOGGER.info("Starting streaming user import in {} format with chunk size {}", format, chunkSize);
+
+        Map<String, Integer> csvColumns = format == Format.CSV ? readCsvHeader(input) : null;
+        UserImportProgress progress = new UserImportProgress("progress", 0, 0, 0, 0);
+        List<CreateUserRequest> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkRows = new ArrayList<>(chunkSize);
+        int row = 0;
+
+        String line;
+        while ((line = input.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int currentRow = row++;
+            try {
+                chunk.add(format == Format.CSV ? parseCsvRow(line, csvColumns) : objectMapper.readValue(line, CreateUserRequest.class));
+                chunkRows.add(currentRow);
+            } catch (JsonProcessingException e) {
+                rejectMalformedRow(output, progress, currentRow, e.getOriginalMessage());
+                continue;
+            } catch (IllegalArgumentException e) {
+                rejectMalformedRow(output, progress, currentRow, e.getMessage());
+                continue;
+            }
+
+            if (chunk.size() == chunkSize) {
+                flushChunk(chunk, chunkRows, progress, output);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flushChunk(chunk, chunkRows, progress, output);
+        }
+
+        progress.setType("summary");
+        write(output, progress);
+        output.flush();
+        LOGGER.info("Finished streaming user import: {} processed, {} created, {} duplicates, {} invalid",
+                progress.getProcessed(), progress.getCreated(), progress.getDuplicates(), progress.getInvalid());
+        return progress;
+    }
+
+    /**
+     * Persists one chunk, writes its non-created rows and a progress record, then clears the chunk.
+     * If the chunk cannot be hashed because the hashing queue is full, an {@code aborted}
+     * record is written before the exception is rethrown.
+     */
+    private void flushChunk(List<CreateUserRequest> chunk, List<Integer> chunkRows,
+                            UserImportProgress progress, Writer output) throws IOException {
+        List<UserImportResult> results;
+        try {
+            results = userService.importUsers(chunk);
+        } catch (HashingCapacityExceededException e) {
+            progress.setType("aborted");
+            write(output, progress);
+            output.flush();
+            throw e;
+        }
+        for (UserImportResult result : results) {
+            result.setRow(chunkRows.get(result.getRow()));
+            switch (result.getStatus()) {
+                case CREATED -> progress.setCreated(progress.getCreated() + 1);
+                case DUPLICATE -> {
+                    progress.setDuplicates(progress.getDuplicates() + 1);
+                    write(output, result);
+                }
+                case INVALID -> {
+                    progress.setInvalid(progress.getInvalid() + 1);
+                    write(output, result);
+                }
+            }
+        }
+        progress.setProcessed(progress.getProcessed() + results.size());
+        write(output, progress);
+        output.flush();
+
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    private void rejectMalformedRow(Writer output, UserImportProgress progress, int row, String reason) throws IOException {
+        write(output, UserImportResult.invalid(row, null, "Malformed row: " + reason));
+        progress.setInvalid(progress.getInvalid() + 1);
+        progress.setProcessed(progress.getProcessed() + 1);
+    }
+
+    private void write(Writer output, Object record) throws IOException {
+        output.write(objectMapper.writeValueAsString(record));
+        output.write('\n');
+    }
+
+    /**
+     * Reads the CSV header and maps each expected column to its position.
+     */
+    private Map<String, Integer> readCsvHeader(BufferedReader input) throws IOException {
+        String header = input.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV input must start with a header row");
+        }
+        List<String> names = splitCsvLine(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("CSV header is missing column: " + column);
+            }
+        }
+        return columns;
+    }
+
+    private CreateUserRequest parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsvLine(line);
+        CreateUserRequest request = new CreateUserRequest();
+        request.setFirstName(column(values, columns.get("firstname")));
+        request.setLastName(column(values, columns.get("lastname")));
+        request.setEmail(column(values, columns.get("email")));
+        request.setPassword(column(values, columns.get("password")));
+        return request;
+    }
+
+    private static String column(List<String> values, int index) {
+        return index < values.size() ? values.get(index) : null;
+    }
+
+    /**
+     * Splits a single CSV line into fields, honouring double-quoted fields and escaped quotes.
+     */
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,89 @@
+package com.codeday.productivity.Config;
+
+import com.codeday.productivity.model.ActivityResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the size and the encode and decode times of a 5000-row activity list as JSON,
+ * CBOR and Smile, using the object mappers the HTTP message converters are built with. Times
+ * are the median of repeated runs after a warm-up.
+ * <p>
+ * Not part of the regular test run; run with {@code ./mvnw test -Dtest=BinaryEncodingBenchmark}.
+ * </p>
+ */
+class BinaryEncodingBenchmark {
+
+	private static final int ROWS = 5000;
+	private static final int WARMUP_RUNS = 200;
+	private static final int MEASURED_RUNS = 51;
+
+	private static final TypeReference<List<ActivityResponse>> TYPE = new TypeReference<>() {
+	};
+
+	@Test
+	void encodingsOfActivityList() throws Exception {
+		BinaryEncodingConfig config = new BinaryEncodingConfig();
+		Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+		mappers.put("JSON", new Jackson2ObjectMapperBuilder().build());
+		mappers.put("CBOR", config.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder()).getObjectMapper());
+		mappers.put("Smile", config.smileHttpMessageConverter(new Jackson2ObjectMapperBuilder()).getObjectMapper());
+		List<ActivityResponse> activities = activities();
+
+		System.out.printf("%-6s %10s %10s %10s%n", "format", "bytes", "encode ms", "decode ms");
+		Map<String, Integer> sizes = new LinkedHashMap<>();
+		for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+			ObjectMapper mapper = entry.getValue();
+			byte[] encoded = mapper.writeValueAsBytes(activities);
+			for (int i = 0; i < WARMUP_RUNS; i++) {
+				mapper.readValue(mapper.writeValueAsBytes(activities), TYPE);
+			}
+			long[] encodeNanos = new long[MEASURED_RUNS];
+			long[] decodeNanos = new long[MEASURED_RUNS];
+			for (int i = 0; i < MEASURED_RUNS; i++) {
+				long startedAt = System.nanoTime();
+				mapper.writeValueAsBytes(activities);
+				encodeNanos[i] = System.nanoTime() - startedAt;
+				startedAt = System.nanoTime();
+				mapper.readValue(encoded, TYPE);
+				decodeNanos[i] = System.nanoTime() - startedAt;
+			}
+			sizes.put(entry.getKey(), encoded.length);
+			System.out.printf("%-6s %10d %10.1f %10.1f%n", entry.getKey(), encoded.length,
+					median(encodeNanos) / 1e6, median(decodeNanos) / 1e6);
+			assertThat(mapper.readValue(encoded, TYPE)).isEqualTo(activities);
+		}
+		assertThat(sizes.get("CBOR")).isLessThan(sizes.get("JSON"));
+		assertThat(sizes.get("Smile")).isLessThan(sizes.get("CBOR"));
+	}
+
+	private static long median(long[] nanos) {
+		long[] sorted = nanos.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private static List<ActivityResponse> activities() {
+		Instant start = Instant.parse("2024-03-04T08:15:30.123Z");
+		List<ActivityResponse> activities = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			Instant startTime = start.plus(i, ChronoUnit.MINUTES);
+			activities.add(new ActivityResponse(i + 1, "Activity " + i, i % 3 == 0 ? null : "Practice session " + i,
+					i % 2 == 0 ? "LEARNING" : "FITNESS", startTime, null, startTime, startTime.plusSeconds(1800), 1800,
+					"Y", startTime.plusSeconds(1800), 7 + i % 20, 3));
+		}
+		return activities;
+	}
+}
@@ -0,0 +1,70 @@
+package com.codeday.productivity.Config;
+
+import com.codeday.productivity.model.ActivityResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the CBOR and Smile encodings are smaller than JSON for a typical activity list,
+ * read back to the same values, write instants as epoch milliseconds and leave out nulls.
+ */
+class BinaryEncodingConfigTests {
+
+	private final BinaryEncodingConfig config = new BinaryEncodingConfig();
+	private final ObjectMapper json = new Jackson2ObjectMapperBuilder().build();
+	private final ObjectMapper cbor = config.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder()).getObjectMapper();
+	private final ObjectMapper smile = config.smileHttpMessageConverter(new Jackson2ObjectMapperBuilder()).getObjectMapper();
+
+	@Test
+	void binaryEncodingsAreSmallerThanJson() throws Exception {
+		List<ActivityResponse> activities = activities(1000);
+		int jsonBytes = json.writeValueAsBytes(activities).length;
+
+		assertThat(cbor.writeValueAsBytes(activities).length).isLessThan(jsonBytes * 3 / 4);
+		assertThat(smile.writeValueAsBytes(activities).length).isLessThan(jsonBytes * 3 / 4);
+	}
+
+	@Test
+	void binaryEncodingsRoundTrip() throws Exception {
+		List<ActivityResponse> activities = activities(10);
+		TypeReference<List<ActivityResponse>> type = new TypeReference<>() {
+		};
+
+		assertThat(cbor.readValue(cbor.writeValueAsBytes(activities), type)).isEqualTo(activities);
+		assertThat(smile.readValue(smile.writeValueAsBytes(activities), type)).isEqualTo(activities);
+	}
+
+	@Test
+	void instantsAreEpochMillisAndNullsAreOmitted() throws Exception {
+		ActivityResponse activity = activities(1).get(0);
+		TypeReference<Map<String, Object>> type = new TypeReference<>() {
+		};
+
+		for (ObjectMapper mapper : List.of(cbor, smile)) {
+			Map<String, Object> fields = mapper.readValue(mapper.writeValueAsBytes(activity), type);
+			assertThat(((Number) fields.get("startTime")).longValue()).isEqualTo(activity.getStartTime().toEpochMilli());
+			assertThat(fields).doesNotContainKeys("description", "endDate");
+		}
+	}
+
+	private static List<ActivityResponse> activities(int count) {
+		Instant start = Instant.parse("2024-03-04T08:15:30.123Z");
+		List<ActivityResponse> activities = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Instant startTime = start.plus(i, ChronoUnit.MINUTES);
+			activities.add(new ActivityResponse(i + 1, "Activity " + i, null, i % 2 == 0 ? "LEARNING" : "FITNESS",
+					startTime, null, startTime, startTime.plusSeconds(1800), 1800, "Y", startTime.plusSeconds(1800), 7, 3));
+		}
+		return activities;
+	}
+}
@@ -0,0 +1,196 @@
+package com.codeday.productivity.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that the activity journal reads back what was appended, recovers from torn records,
+ * rolls over to new segments and acknowledges concurrent appenders through shared forces.
+ */
+class ActivityJournalTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void durableEventsAreReadBackInOrder() throws Exception {
+		try (ActivityJournal journal = open(16)) {
+			List<ActivityEvent> events = List.of(event(ActivityEvent.Type.STARTED, 1, 0),
+					event(ActivityEvent.Type.STOPPED, 1, 90), event(ActivityEvent.Type.UPDATED, 2, 0));
+			long last = -1;
+			for (ActivityEvent event : events) {
+				last = journal.append(event);
+			}
+			journal.awaitDurable(last);
+
+			assertThat(last).isEqualTo(2);
+			assertThat(journal.durableSequence()).isEqualTo(3);
+			assertThat(journal.read(0, 10)).isEqualTo(events);
+			assertThat(journal.read(1, 1)).containsExactly(events.get(1));
+			assertThat(journal.read(3, 10)).isEmpty();
+		}
+	}
+
+	@Test
+	void reopeningResumesAfterTheLastRecord() throws Exception {
+		try (ActivityJournal journal = open(16)) {
+			journal.append(event(ActivityEvent.Type.STARTED, 1, 0));
+			journal.append(event(ActivityEvent.Type.STOPPED, 1, 30));
+		}
+		try (ActivityJournal journal = open(16)) {
+			assertThat(journal.durableSequence()).isEqualTo(2);
+			assertThat(journal.append(event(ActivityEvent.Type.STARTED, 2, 0))).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void idIsKeptPerDirectory(@TempDir Path otherDirectory) throws Exception {
+		String id;
+		try (ActivityJournal journal = open(16)) {
+			id = journal.getId();
+		}
+		try (ActivityJournal journal = open(16);
+			 ActivityJournal other = new ActivityJournal(otherDirectory, 16, Duration.ZERO)) {
+			assertThat(journal.getId()).isEqualTo(id);
+			assertThat(other.getId()).isNotEqualTo(id);
+		}
+	}
+
+	@Test
+	void recoveryStopsAtRecordFailingItsChecksum() throws Exception {
+		try (ActivityJournal journal = open(16)) {
+			for (int i = 0; i < 3; i++) {
+				journal.append(event(ActivityEvent.Type.STARTED, i, 0));
+			}
+		}
+		// Flip a byte of the second record's payload, leaving its type intact
+		corrupt(segment(0), ActivityJournal.RECORD_SIZE + 12);
+
+		try (ActivityJournal journal = open(16)) {
+			assertThat(journal.durableSequence()).isEqualTo(1);
+			assertThat(journal.read(0, 10)).extracting(ActivityEvent::getActivityId).containsExactly(0);
+		}
+	}
+
+	@Test
+	void recoveryClearsStaleRecordsAfterTornRecord() throws Exception {
+		try (ActivityJournal journal = open(16)) {
+			for (int i = 0; i < 5; i++) {
+				journal.append(event(ActivityEvent.Type.STARTED, i, 0));
+			}
+		}
+		corrupt(segment(0), ActivityJournal.RECORD_SIZE + 12);
+
+		// The torn slot is rewritten; the valid records that followed it must not come back
+		try (ActivityJournal journal = open(16)) {
+			journal.awaitDurable(journal.append(event(ActivityEvent.Type.STOPPED, 1, 45)));
+		}
+		try (ActivityJournal journal = open(16)) {
+			assertThat(journal.durableSequence()).isEqualTo(2);
+			assertThat(journal.read(0, 10)).extracting(ActivityEvent::getType)
+					.containsExactly(ActivityEvent.Type.STARTED, ActivityEvent.Type.STOPPED);
+		}
+	}
+
+	@Test
+	void fullSegmentsRollOverToNewFiles() throws Exception {
+		try (ActivityJournal journal = open(4)) {
+			long last = -1;
+			for (int i = 0; i < 10; i++) {
+				last = journal.append(event(ActivityEvent.Type.STARTED, i, 0));
+			}
+			journal.awaitDurable(last);
+
+			assertThat(journal.read(0, 100)).extracting(ActivityEvent::getActivityId)
+					.containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files.map(path -> path.getFileName().toString()).sorted())
+					.containsExactly("00000000000000000000.seg", "00000000000000000004.seg", "00000000000000000008.seg", "journal.id");
+		}
+		try (ActivityJournal journal = open(4)) {
+			assertThat(journal.durableSequence()).isEqualTo(10);
+			assertThat(journal.read(6, 100)).extracting(ActivityEvent::getActivityId).containsExactly(6, 7, 8, 9);
+		}
+	}
+
+	@Test
+	void concurrentAppendersAreAllAcknowledged() throws Exception {
+		int threads = 8;
+		int perThread = 200;
+		try (ActivityJournal journal = new ActivityJournal(directory, 256, Duration.ofMillis(1))) {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					int thread = t;
+					futures.add(executor.submit(() -> {
+						for (int i = 0; i < perThread; i++) {
+							journal.awaitDurable(journal.append(event(ActivityEvent.Type.STARTED, thread * perThread + i, 0)));
+						}
+					}));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			} finally {
+				executor.shutdown();
+			}
+
+			assertThat(journal.durableSequence()).isEqualTo(threads * perThread);
+			assertThat(journal.read(0, threads * perThread)).extracting(ActivityEvent::getActivityId)
+					.doesNotHaveDuplicates()
+					.hasSize(threads * perThread);
+		}
+	}
+
+	@Test
+	void closingForcesPendingEventsAndRejectsNewOnes() throws Exception {
+		ActivityJournal journal = new ActivityJournal(directory, 16, Duration.ofSeconds(5));
+		long sequence = journal.append(event(ActivityEvent.Type.STARTED, 1, 0));
+		journal.close();
+
+		journal.awaitDurable(sequence);
+		assertThatThrownBy(() -> journal.append(event(ActivityEvent.Type.STOPPED, 1, 10)))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private ActivityJournal open(int segmentRecords) {
+		return new ActivityJournal(directory, segmentRecords, Duration.ZERO);
+	}
+
+	private Path segment(long firstSequence) {
+		return directory.resolve(String.format("%020d.seg", firstSequence));
+	}
+
+	private static void corrupt(Path file, long position) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer value = ByteBuffer.allocate(1);
+			channel.read(value, position);
+			value.put(0, (byte) (value.get(0) ^ 0x5A)).rewind();
+			channel.write(value, position);
+		}
+	}
+
+	private static ActivityEvent event(ActivityEvent.Type type, int activityId, long duration) {
+		return new ActivityEvent(type, activityId, 7, 3, Instant.parse("2024-05-01T10:15:30.123456789Z"), duration);
+	}
+}
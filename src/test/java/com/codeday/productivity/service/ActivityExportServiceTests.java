@@ -0,0 +1,93 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.entity.Activity;
+import com.codeday.productivity.entity.Goal;
+import com.codeday.productivity.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that an export streams only the user's own activities, ordered by start date and then
+ * by ID, in both output formats.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"productivity.activities.export.fetch-size=100"
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ActivityExportService.class)
+class ActivityExportServiceTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ActivityExportService exportService;
+
+	@Test
+	void csvExportIsOrderedByStartDateThenId() throws Exception {
+		User user = persistUser("ada");
+		Goal goal = persistGoal(user);
+		Activity late = persistActivity(user, goal, "Late", Instant.parse("2024-03-02T09:00:00Z"));
+		Activity early = persistActivity(user, goal, "Early, first", Instant.parse("2024-03-01T09:00:00Z"));
+		Activity sameDay = persistActivity(user, goal, "Early, second", Instant.parse("2024-03-01T09:00:00Z"));
+		User other = persistUser("grace");
+		persistActivity(other, persistGoal(other), "Someone else's", Instant.parse("2024-03-01T08:00:00Z"));
+		entityManager.clear();
+
+		StringWriter output = new StringWriter();
+		long count = exportService.exportActivities(user.getId(), ActivityExportService.Format.CSV, output);
+
+		List<String> lines = output.toString().lines().toList();
+		assertThat(count).isEqualTo(3);
+		assertThat(lines).hasSize(4);
+		assertThat(lines.get(0)).startsWith("id,title,");
+		assertThat(lines.get(1)).startsWith(early.getId() + ",\"Early, first\",");
+		assertThat(lines.get(2)).startsWith(sameDay.getId() + ",\"Early, second\",");
+		assertThat(lines.get(3)).startsWith(late.getId() + ",Late,");
+	}
+
+	@Test
+	void ndjsonExportWritesOneObjectPerLine() throws Exception {
+		User user = persistUser("ada");
+		Goal goal = persistGoal(user);
+		persistActivity(user, goal, "First", Instant.parse("2024-03-01T09:00:00Z"));
+		persistActivity(user, goal, "Second", Instant.parse("2024-03-02T09:00:00Z"));
+		entityManager.clear();
+
+		StringWriter output = new StringWriter();
+		long count = exportService.exportActivities(user.getId(), ActivityExportService.Format.NDJSON, output);
+
+		List<String> lines = output.toString().lines().toList();
+		assertThat(count).isEqualTo(2);
+		assertThat(lines).hasSize(2);
+		assertThat(lines.get(0)).startsWith("{").contains("\"title\":\"First\"");
+		assertThat(lines.get(1)).startsWith("{").contains("\"title\":\"Second\"");
+	}
+
+	private User persistUser(String name) {
+		return entityManager.persistAndFlush(TestFixtures.user(name, "Export"));
+	}
+
+	private Goal persistGoal(User user) {
+		return entityManager.persistAndFlush(TestFixtures.goal(user));
+	}
+
+	private Activity persistActivity(User user, Goal goal, String title, Instant startDate) {
+		Activity activity = TestFixtures.activity(user, goal, "LEARNING");
+		activity.setTitle(title);
+		activity.setStartDate(startDate);
+		return entityManager.persistAndFlush(activity);
+	}
+}
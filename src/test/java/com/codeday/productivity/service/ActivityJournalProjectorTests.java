@@ -0,0 +1,202 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.entity.Activity;
+import com.codeday.productivity.entity.Goal;
+import com.codeday.productivity.entity.User;
+import com.codeday.productivity.journal.ActivityEvent;
+import com.codeday.productivity.journal.ActivityJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that the activity journal projector applies started and stopped events to the
+ * activity, its goal's total and the rollups, that replaying events already applied changes
+ * nothing, that repeated stops of one activity in one batch count once, that a stale stop from
+ * another instance changes nothing, that every journal has its own checkpoint, and that it refuses a checkpoint past the
+ * end of the journal.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:projector;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ActivityRollupService.class)
+class ActivityJournalProjectorTests {
+
+	private static final Instant STARTED_AT = Instant.parse("2024-05-01T09:00:00Z");
+	private static final Instant STOPPED_AT = Instant.parse("2024-05-01T09:10:00Z");
+
+	@TempDir
+	Path directory;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ActivityRollupService rollupService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final List<ActivityJournalProjector> projectors = new ArrayList<>();
+	private ActivityJournal journal;
+	private Activity activity;
+
+	@BeforeEach
+	void journalStartAndStop() {
+		activity = persistActivity();
+		journal = new ActivityJournal(directory, 16, Duration.ZERO);
+		journal.append(event(ActivityEvent.Type.STARTED, STARTED_AT, 0));
+		journal.awaitDurable(journal.append(event(ActivityEvent.Type.STOPPED, STOPPED_AT, 600)));
+	}
+
+	@AfterEach
+	void stop() throws Exception {
+		for (ActivityJournalProjector projector : projectors) {
+			projector.shutdown();
+		}
+		journal.close();
+	}
+
+	@Test
+	void startReplaysEventsAfterCheckpoint() {
+		newProjector().start();
+
+		assertProjected();
+	}
+
+	@Test
+	void replayingAppliedEventsChangesNothing() {
+		newProjector().start();
+		jdbcTemplate.update("UPDATE activity_journal_checkpoint SET position = 0");
+		newProjector().start();
+
+		assertProjected();
+	}
+
+	@Test
+	void repeatedStopsInOneBatchCountOnlyTheLast() {
+		journal.awaitDurable(journal.append(event(ActivityEvent.Type.STOPPED, STOPPED_AT.plusSeconds(120), 720)));
+
+		newProjector().start();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT duration FROM activity_tbl WHERE id = ?", Long.class,
+				activity.getId())).isEqualTo(720L);
+		assertThat(jdbcTemplate.queryForObject("SELECT total_activity_duration FROM goal_tbl WHERE id = ?",
+				Long.class, activity.getGoal().getId())).isEqualTo(720L);
+		assertThat(jdbcTemplate.queryForObject("SELECT total_duration FROM activity_rollup WHERE user_id = ?",
+				Long.class, activity.getUser().getId())).isEqualTo(720L);
+	}
+
+	@Test
+	void staleStopFromAnotherInstanceChangesNothing(@TempDir Path otherDirectory) throws Exception {
+		ActivityJournalProjector projector = newProjector();
+		projector.start();
+		// The other instance still holds the timer of the original start and stops it later
+		ActivityEvent staleStop = event(ActivityEvent.Type.STOPPED, STOPPED_AT.plusSeconds(300), 900);
+		try (ActivityJournal other = new ActivityJournal(otherDirectory, 16, Duration.ZERO)) {
+			ActivityJournalProjector otherProjector = new ActivityJournalProjector(other, jdbcTemplate, rollupService,
+					transactionManager, new SimpleMeterRegistry(), 500, Duration.ofMinutes(1));
+			otherProjector.start();
+			other.awaitDurable(other.append(staleStop));
+			otherProjector.catchUp();
+			assertProjected();
+
+			// Nor does it stop a run restarted since
+			journal.awaitDurable(journal.append(event(ActivityEvent.Type.STARTED, STOPPED_AT.plusSeconds(60), 0)));
+			projector.catchUp();
+			other.awaitDurable(other.append(staleStop));
+			otherProjector.catchUp();
+			otherProjector.shutdown();
+		}
+
+		assertThat(jdbcTemplate.queryForMap("SELECT stop_time, duration FROM activity_tbl WHERE id = ?", activity.getId()))
+				.containsEntry("stop_time", null).containsEntry("duration", 600L);
+		assertThat(jdbcTemplate.queryForObject("SELECT total_activity_duration FROM goal_tbl WHERE id = ?",
+				Long.class, activity.getGoal().getId())).isEqualTo(600L);
+	}
+
+	@Test
+	void eachJournalKeepsItsOwnCheckpoint(@TempDir Path otherDirectory) throws Exception {
+		newProjector().start();
+		// A second instance with an empty journal of its own starts while the first is ahead
+		try (ActivityJournal other = new ActivityJournal(otherDirectory, 16, Duration.ZERO)) {
+			ActivityJournalProjector otherProjector = new ActivityJournalProjector(other, jdbcTemplate, rollupService,
+					transactionManager, new SimpleMeterRegistry(), 500, Duration.ofMinutes(1));
+			otherProjector.start();
+			otherProjector.shutdown();
+
+			assertThat(jdbcTemplate.queryForObject("SELECT position FROM activity_journal_checkpoint WHERE journal_id = ?",
+					Long.class, other.getId())).isZero();
+		}
+		assertProjected();
+	}
+
+	@Test
+	void startFailsWhenCheckpointIsPastJournalEnd() {
+		jdbcTemplate.update("INSERT INTO activity_journal_checkpoint (journal_id, position) VALUES (?, 5)", journal.getId());
+
+		assertThatThrownBy(() -> newProjector().start())
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("is past the end of journal " + journal.getId());
+	}
+
+	private void assertProjected() {
+		Map<String, Object> row = jdbcTemplate.queryForMap(
+				"SELECT is_complete, duration, start_time, stop_time FROM activity_tbl WHERE id = ?", activity.getId());
+		assertThat(row.get("duration")).isEqualTo(600L);
+		assertThat(row.get("stop_time")).isNotNull();
+		assertThat(jdbcTemplate.queryForObject("SELECT total_activity_duration FROM goal_tbl WHERE id = ?",
+				Long.class, activity.getGoal().getId())).isEqualTo(600L);
+		assertThat(jdbcTemplate.queryForMap("SELECT total_duration, activity_count FROM activity_rollup WHERE user_id = ?",
+				activity.getUser().getId())).containsEntry("total_duration", 600L).containsEntry("activity_count", 1);
+		assertThat(jdbcTemplate.queryForObject("SELECT position FROM activity_journal_checkpoint WHERE journal_id = ?",
+				Long.class, journal.getId())).isEqualTo(2L);
+	}
+
+	private ActivityJournalProjector newProjector() {
+		ActivityJournalProjector projector = new ActivityJournalProjector(journal, jdbcTemplate, rollupService,
+				transactionManager, new SimpleMeterRegistry(), 500, Duration.ofMinutes(1));
+		projectors.add(projector);
+		return projector;
+	}
+
+	private ActivityEvent event(ActivityEvent.Type type, Instant time, long duration) {
+		return new ActivityEvent(type, activity.getId(), activity.getUser().getId(), activity.getGoal().getId(), time, duration);
+	}
+
+	private Activity persistActivity() {
+		User user = entityManager.persist(TestFixtures.user());
+		Goal goal = entityManager.persist(TestFixtures.goal(user));
+		Activity activity = TestFixtures.activity(user, goal, "FITNESS");
+		activity.setTitle("Run");
+		return entityManager.persistFlushFind(activity);
+	}
+}
@@ -0,0 +1,142 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.journal.ActivityEvent;
+import com.codeday.productivity.journal.ActivityJournal;
+import com.codeday.productivity.model.ActivityTimer;
+import com.codeday.productivity.repository.ActivityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that the timer registry stops timers started on another instance from the stored
+ * activity, that such a timer cannot be stopped twice before the stop reaches the database, and that concurrent changes of one activity are journaled in the order they were made.
+ */
+class ActivityTimerRegistryTests {
+
+	@TempDir
+	Path directory;
+
+	private ActivityRepository activityRepository;
+	private ActivityJournal journal;
+	private ActivityJournalProjector projector;
+	private ActivityTimerRegistry registry;
+
+	@BeforeEach
+	void createRegistry() {
+		activityRepository = mock(ActivityRepository.class);
+		when(activityRepository.findRunningTimerById(anyInt())).thenReturn(Optional.empty());
+		journal = new ActivityJournal(directory, 1024, Duration.ZERO);
+		projector = mock(ActivityJournalProjector.class);
+		registry = new ActivityTimerRegistry(activityRepository, journal, projector, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void closeJournal() throws Exception {
+		journal.close();
+	}
+
+	@Test
+	void timerStartedOnAnotherInstanceIsStoppedFromStoredActivity() {
+		Instant startedAt = Instant.now().minusSeconds(600);
+		when(activityRepository.findRunningTimerById(7)).thenReturn(Optional.of(new ActivityTimer(7, 1, 2, startedAt, null, 0)));
+
+		assertThat(registry.find(7)).isPresent();
+		ActivityTimer stopped = registry.stop(7).orElseThrow();
+
+		assertThat(stopped.getStartTime()).isEqualTo(startedAt);
+		assertThat(stopped.getDuration()).isBetween(600L, 605L);
+		assertThat(journal.read(0, 10)).singleElement().satisfies(event -> {
+			assertThat(event.getType()).isEqualTo(ActivityEvent.Type.STOPPED);
+			assertThat(event.getGoalId()).isEqualTo(2);
+			assertThat(event.getDuration()).isEqualTo(stopped.getDuration());
+		});
+	}
+
+	@Test
+	void timerStoppedFromStoredActivityIsNotRunningUntilStopIsApplied() {
+		// The stored activity keeps looking running until the projector applies the stop
+		when(activityRepository.findRunningTimerById(7)).thenReturn(Optional.of(
+				new ActivityTimer(7, 1, 2, Instant.now().minusSeconds(60), null, 0)));
+		assertThat(registry.stop(7)).isPresent();
+
+		assertThat(registry.find(7)).isEmpty();
+		assertThat(registry.stop(7)).isEmpty();
+		assertThat(journal.read(0, 10)).hasSize(1);
+
+		when(projector.appliedSequence()).thenReturn(1L);
+		assertThat(registry.find(7)).isPresent();
+	}
+
+	@Test
+	void stoppingTimerThatIsNotRunningAnywhereChangesNothing() {
+		assertThat(registry.find(7)).isEmpty();
+		assertThat(registry.stop(7)).isEmpty();
+		assertThat(journal.durableSequence()).isZero();
+	}
+
+	@Test
+	void concurrentStartsAndStopsAlternateInJournal() throws Exception {
+		int threads = 8;
+		int rounds = 200;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int activityId = t % 2;
+				workers.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < rounds; i++) {
+						registry.start(activityId, 1, 2);
+						registry.stop(activityId);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// Every stop is journaled right after a start of the same activity, never twice in a row
+		for (int activityId = 0; activityId < 2; activityId++) {
+			ActivityEvent.Type last = ActivityEvent.Type.STOPPED;
+			int stops = 0;
+			for (ActivityEvent event : journal.read(0, threads * rounds * 2)) {
+				if (event.getActivityId() != activityId) {
+					continue;
+				}
+				if (event.getType() == ActivityEvent.Type.STOPPED) {
+					assertThat(last).isEqualTo(ActivityEvent.Type.STARTED);
+					stops++;
+				}
+				last = event.getType();
+			}
+			assertThat(stops).isPositive();
+		}
+		assertThat(registry.get(0)).isNull();
+		assertThat(registry.get(1)).isNull();
+	}
+}
@@ -0,0 +1,107 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.entity.Goal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that goal counters are recomputed on startup when existing goals have never been
+ * counted, that counted goals are left to the scheduled repair, that a repair held by another
+ * instance is skipped, and that the entity never writes a goal's progress.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({GoalCounterRepairJob.class, JobLockService.class})
+class GoalCounterRepairJobTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private GoalCounterRepairJob repairJob;
+
+	@Test
+	void uncountedGoalsAreRecomputedOnStartup() {
+		// Counters are only written by SQL, so goals persisted with tasks start uncounted
+		Goal goal = persistGoal();
+		persistTask(goal, "Y");
+		persistTask(goal, "N");
+
+		repairJob.repairIfUninitialized();
+
+		assertThat(jdbcTemplate.queryForMap("SELECT task_count, completed_task_count, progress FROM goal_tbl WHERE id = ?",
+				goal.getId())).containsEntry("task_count", 2).containsEntry("completed_task_count", 1).containsEntry("progress", 50);
+	}
+
+	@Test
+	void countedGoalsAreLeftAloneOnStartup() {
+		Goal goal = persistGoal();
+		persistTask(goal, "N");
+		// Counted, though drifted; drift is the scheduled repair's job
+		jdbcTemplate.update("UPDATE goal_tbl SET task_count = 3 WHERE id = ?", goal.getId());
+
+		repairJob.repairIfUninitialized();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT task_count FROM goal_tbl WHERE id = ?", Integer.class,
+				goal.getId())).isEqualTo(3);
+	}
+
+	@Test
+	void repairHeldByAnotherInstanceIsSkipped() {
+		Goal goal = persistGoal();
+		persistTask(goal, "N");
+		assertThat(new JobLockService(jdbcTemplate).tryLock(GoalCounterRepairJob.LOCK_NAME, Duration.ofHours(1))).isTrue();
+
+		assertThat(repairJob.repairAll()).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT task_count FROM goal_tbl WHERE id = ?", Integer.class,
+				goal.getId())).isZero();
+
+		// Once the other instance's lease has run out the repair goes ahead
+		jdbcTemplate.update("UPDATE job_lock SET locked_until = 0 WHERE name = ?", GoalCounterRepairJob.LOCK_NAME);
+		assertThat(repairJob.repairAll()).isEqualTo(1);
+		assertThat(jdbcTemplate.queryForObject("SELECT task_count FROM goal_tbl WHERE id = ?", Integer.class,
+				goal.getId())).isEqualTo(1);
+	}
+
+	@Test
+	void newGoalStartsWithoutProgress() {
+		Goal goal = TestFixtures.goal(entityManager.persist(TestFixtures.user()));
+		goal.setProgress(80);
+		entityManager.persistAndFlush(goal);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT progress FROM goal_tbl WHERE id = ?", Integer.class,
+				goal.getId())).isZero();
+	}
+
+	@Test
+	void savingLoadedGoalKeepsProgress() {
+		Goal goal = persistGoal();
+		entityManager.clear();
+		Goal loaded = entityManager.find(Goal.class, goal.getId());
+		jdbcTemplate.update("UPDATE goal_tbl SET progress = 75 WHERE id = ?", goal.getId());
+
+		loaded.setTitle("Renamed");
+		entityManager.flush();
+
+		assertThat(jdbcTemplate.queryForMap("SELECT title, progress FROM goal_tbl WHERE id = ?", goal.getId()))
+				.containsEntry("title", "Renamed").containsEntry("progress", 75);
+	}
+
+	private Goal persistGoal() {
+		return entityManager.persistAndFlush(TestFixtures.goal(entityManager.persist(TestFixtures.user())));
+	}
+
+	private void persistTask(Goal goal, String isCompleted) {
+		entityManager.persistAndFlush(TestFixtures.task(goal, isCompleted));
+	}
+}
@@ -0,0 +1,175 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.entity.Goal;
+import com.codeday.productivity.entity.Task;
+import com.codeday.productivity.entity.User;
+import com.codeday.productivity.model.TaskOperation;
+import com.codeday.productivity.model.TaskOperationResult;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that creating goals and tasks issues a fixed number of SQL statements, no matter how
+ * many goals the user or tasks the goal already has, that bulk task operations are batched,
+ * and that a stale task only fails its own operation.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.properties.productivity.id.allocation-size.goal_sequence=1",
+		"spring.jpa.properties.productivity.id.allocation-size.task_sequence=1"
+})
+@Import({GoalService.class, TaskService.class, PageSizePolicy.class, PurgeService.class})
+class GoalTaskWriteTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private GoalService goalService;
+
+	@Autowired
+	private TaskService taskService;
+
+	@MockBean
+	private OwnershipService ownershipService;
+
+	@MockBean
+	private TaskTimeAccumulator timeAccumulator;
+
+	@MockBean
+	private ActivityTimerRegistry timerRegistry;
+
+	@MockBean
+	private ActivityRollupService rollupService;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void enableStatistics() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {0, 1, 50})
+	void creatingGoalDoesNotLoadUsersGoals(int existingGoals) {
+		User user = persistUser();
+		for (int i = 0; i < existingGoals; i++) {
+			persistGoal(user);
+		}
+		entityManager.clear();
+
+		User reference = entityManager.getEntityManager().getReference(User.class, user.getId());
+		long statements = countStatements(() -> goalService.saveGoalForUser(reference, TestFixtures.goal(null)));
+
+		// One sequence call and one insert
+		assertThat(statements).isEqualTo(2);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {0, 1, 50})
+	void creatingTaskDoesNotLoadGoalsTasks(int existingTasks) {
+		Goal goal = persistGoal(persistUser());
+		for (int i = 0; i < existingTasks; i++) {
+			Task task = TestFixtures.task(goal, "N");
+			entityManager.persist(task);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Goal reference = entityManager.getEntityManager().getReference(Goal.class, goal.getId());
+		long saveStatements = countStatements(() -> taskService.saveTaskForGoal(reference, TestFixtures.task(null, "N")));
+		long addStatements = countStatements(() -> taskService.addTaskToGoal(reference, TestFixtures.task(null, "N")));
+
+		// One sequence call, one insert and one goal counter update each
+		assertThat(saveStatements).isEqualTo(3);
+		assertThat(addStatements).isEqualTo(3);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {10, 100})
+	void bulkCompletionBatchesUpdates(int tasks) {
+		Goal goal = persistGoal(persistUser());
+		List<TaskOperation> operations = new ArrayList<>();
+		for (int i = 0; i < tasks; i++) {
+			Task task = TestFixtures.task(goal, "N");
+			entityManager.persist(task);
+			operations.add(operation(TaskOperation.Type.COMPLETE, task.getId(), null));
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Goal reference = entityManager.getEntityManager().getReference(Goal.class, goal.getId());
+		long statements = countStatements(() -> taskService.applyOperations(reference, operations));
+
+		// One locking select, one batched task update and one goal counter update
+		assertThat(statements).isEqualTo(3);
+	}
+
+	@Test
+	void bulkOperationsReportStaleVersionsPerOperation() {
+		Goal goal = persistGoal(persistUser());
+		Task current = TestFixtures.task(goal, "N");
+		entityManager.persist(current);
+		Task stale = TestFixtures.task(goal, "N");
+		entityManager.persist(stale);
+		entityManager.flush();
+		entityManager.clear();
+
+		Goal reference = entityManager.getEntityManager().getReference(Goal.class, goal.getId());
+		List<TaskOperationResult> results = taskService.applyOperations(reference, List.of(
+				operation(TaskOperation.Type.COMPLETE, current.getId(), current.getVersion()),
+				operation(TaskOperation.Type.COMPLETE, stale.getId(), stale.getVersion() + 1),
+				operation(TaskOperation.Type.DELETE, stale.getId(), stale.getVersion() + 1)));
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(results).extracting(TaskOperationResult::getStatus).containsExactly(
+				TaskOperationResult.Status.OK, TaskOperationResult.Status.CONFLICT, TaskOperationResult.Status.CONFLICT);
+		assertThat(entityManager.find(Task.class, current.getId()).getIsCompleted()).isEqualTo("Y");
+		assertThat(entityManager.find(Task.class, stale.getId()).getIsCompleted()).isEqualTo("N");
+		assertThat(entityManager.find(Goal.class, goal.getId()).getCompletedTaskCount()).isEqualTo(1);
+	}
+
+	private long countStatements(Runnable write) {
+		entityManager.flush();
+		statistics.clear();
+		write.run();
+		entityManager.flush();
+		return statistics.getPrepareStatementCount();
+	}
+
+	private User persistUser() {
+		return entityManager.persistAndFlush(TestFixtures.user());
+	}
+
+	private Goal persistGoal(User user) {
+		return entityManager.persistAndFlush(TestFixtures.goal(user));
+	}
+
+	private static TaskOperation operation(TaskOperation.Type type, Integer taskId, Long version) {
+		TaskOperation operation = new TaskOperation();
+		operation.setType(type);
+		operation.setTaskId(taskId);
+		operation.setVersion(version);
+		return operation;
+	}
+}
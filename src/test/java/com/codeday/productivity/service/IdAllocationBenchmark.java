@@ -0,0 +1,224 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.cache.CachedUser;
+import com.codeday.productivity.cache.ExpiringLruCache;
+import com.codeday.productivity.entity.Activity;
+import com.codeday.productivity.entity.Goal;
+import com.codeday.productivity.entity.User;
+import com.codeday.productivity.repository.GoalRepository;
+import com.codeday.productivity.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.NestedTestConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures insert throughput of {@code ActivityService.saveActivityForUserAndGoal} and
+ * {@code UserService.saveUsers} on in-memory H2, with ID blocks of one (a sequence round trip
+ * per insert, as before pooled allocation) and of 50. Every statement and commit is delayed by
+ * a fixed round trip, standing in for the network between the application and MySQL, which
+ * in-memory H2 does not have. Password hashing is stubbed out, so only the inserts are measured.
+ * <p>
+ * Not part of the regular test run; run with {@code ./mvnw test -Dtest=IdAllocationBenchmark}.
+ * </p>
+ */
+class IdAllocationBenchmark {
+
+	private static final int ACTIVITIES = 2000;
+	private static final int USERS = 2000;
+	private static final long ROUND_TRIP_NANOS = 200_000;
+
+	@Nested
+	@NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+	@DataJpaTest(showSql = false, properties = {
+			"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+			"spring.jpa.properties.hibernate.generate_statistics=true",
+			"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+			"spring.jpa.properties.productivity.id.allocation-size.user_sequence=1",
+			"spring.jpa.properties.productivity.id.allocation-size.goal_sequence=1",
+			"spring.jpa.properties.productivity.id.allocation-size.activity_sequence=1"
+	})
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	@Import({ActivityService.class, UserService.class, PageSizePolicy.class, RoundTripLatency.class})
+	class BlockOfOne extends Scenario {
+	}
+
+	@Nested
+	@NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+	@DataJpaTest(showSql = false, properties = {
+			"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+			"spring.jpa.properties.hibernate.generate_statistics=true",
+			"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+			"spring.jpa.properties.productivity.id.allocation-size.user_sequence=50",
+			"spring.jpa.properties.productivity.id.allocation-size.goal_sequence=50",
+			"spring.jpa.properties.productivity.id.allocation-size.activity_sequence=50"
+	})
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	@Import({ActivityService.class, UserService.class, PageSizePolicy.class, RoundTripLatency.class})
+	class BlockOfFifty extends Scenario {
+	}
+
+	/**
+	 * Wraps the data source so that every statement execution and commit waits for one round trip.
+	 */
+	static class RoundTripLatency implements BeanPostProcessor {
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			if (!(bean instanceof DataSource dataSource)) {
+				return bean;
+			}
+			return new DelegatingDataSource(dataSource) {
+				@Override
+				public Connection getConnection() throws SQLException {
+					return delayed(Connection.class, super.getConnection());
+				}
+			};
+		}
+
+		private static <T> T delayed(Class<T> type, T target) {
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+				if (method.getName().startsWith("execute") || method.getName().equals("commit")) {
+					LockSupport.parkNanos(ROUND_TRIP_NANOS);
+				}
+				Object result;
+				try {
+					result = method.invoke(target, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+				return result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")
+						? delayed(PreparedStatement.class, statement)
+						: result;
+			}));
+		}
+	}
+
+	abstract static class Scenario {
+
+		@Autowired
+		private EntityManagerFactory entityManagerFactory;
+
+		@Autowired
+		private UserRepository userRepository;
+
+		@Autowired
+		private GoalRepository goalRepository;
+
+		@Autowired
+		private ActivityService activityService;
+
+		@Autowired
+		private UserService userService;
+
+		@Value("${spring.jpa.properties.productivity.id.allocation-size.activity_sequence}")
+		private int blockSize;
+
+		@MockBean
+		private OwnershipService ownershipService;
+
+		@MockBean
+		private ActivityTimerRegistry timerRegistry;
+
+		@MockBean
+		private ActivityRollupService rollupService;
+
+		@MockBean
+		private PasswordHashingService hashingService;
+
+		@MockBean
+		private ExpiringLruCache<Integer, CachedUser> userCache;
+
+		@MockBean
+		private EmailMembershipFilter emailFilter;
+
+		@MockBean
+		private UserSearchIndex searchIndex;
+
+		@Test
+		void insertThroughput() {
+			when(hashingService.encodeAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+			Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+			User user = userRepository.save(newUser("owner"));
+			Goal goal = new Goal();
+			goal.setTitle("Goal");
+			goal.setIsComplete("N");
+			goal.setUser(user);
+			int goalId = goalRepository.save(goal).getId();
+			// Warm up both paths before measuring
+			saveActivities(user, goalId, 1000);
+			userService.saveUsers(newUsers("warmup", 1000));
+
+			statistics.clear();
+			long startedAt = System.nanoTime();
+			saveActivities(user, goalId, ACTIVITIES);
+			report("saveActivityForUserAndGoal", ACTIVITIES, System.nanoTime() - startedAt, statistics);
+			// One insert per activity, plus one sequence call per block of IDs
+			assertThat(statistics.getPrepareStatementCount()).isEqualTo(ACTIVITIES + ACTIVITIES / blockSize);
+
+			List<User> users = newUsers("import", USERS);
+			statistics.clear();
+			startedAt = System.nanoTime();
+			assertThat(userService.saveUsers(users)).hasSize(USERS);
+			report("saveUsers", USERS, System.nanoTime() - startedAt, statistics);
+		}
+
+		private void saveActivities(User user, int goalId, int count) {
+			for (int i = 0; i < count; i++) {
+				Activity activity = new Activity();
+				activity.setTitle("Activity " + i);
+				activity.setType("LEARNING");
+				activity.setIsComplete("N");
+				activityService.saveActivityForUserAndGoal(user, activity, goalId);
+			}
+		}
+
+		private void report(String path, int rows, long nanos, Statistics statistics) {
+			System.out.printf("block %2d  %-27s %5d rows  %5d statements  %6d rows/s%n", blockSize, path, rows,
+					statistics.getPrepareStatementCount(), rows * 1_000_000_000L / nanos);
+		}
+
+		private static List<User> newUsers(String prefix, int count) {
+			List<User> users = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				users.add(newUser(prefix + i));
+			}
+			return users;
+		}
+
+		private static User newUser(String name) {
+			User user = new User();
+			user.setFirstName(name);
+			user.setLastName("Benchmark");
+			user.setEmail(name + "@example.com");
+			user.setPassword("secret");
+			user.setIsActive("Y");
+			return user;
+		}
+	}
+}
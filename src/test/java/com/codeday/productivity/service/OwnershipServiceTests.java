@@ -0,0 +1,101 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.cache.ExpiringLruCache;
+import com.codeday.productivity.exceptions.ActivityGoalMismatchException;
+import com.codeday.productivity.exceptions.ActivityNotFoundException;
+import com.codeday.productivity.exceptions.GoalNotFoundException;
+import com.codeday.productivity.exceptions.UnauthorizedException;
+import com.codeday.productivity.model.ActivityOwnership;
+import com.codeday.productivity.repository.ActivityRepository;
+import com.codeday.productivity.repository.GoalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that a missing goal or activity is reported as not found, which the task endpoints
+ * answer with 404 for goals, that one owned by another user is reported as unauthorized, which
+ * the endpoints answer with 401, and that a cached goal owner is still checked against the
+ * requesting user.
+ */
+class OwnershipServiceTests {
+
+	private GoalRepository goalRepository;
+	private ActivityRepository activityRepository;
+	private OwnershipService ownershipService;
+
+	@BeforeEach
+	void createService() {
+		goalRepository = mock(GoalRepository.class);
+		activityRepository = mock(ActivityRepository.class);
+		when(goalRepository.findUserIdById(anyInt())).thenReturn(Optional.empty());
+		when(activityRepository.findOwnershipById(anyInt())).thenReturn(Optional.empty());
+		ownershipService = new OwnershipService(goalRepository, activityRepository,
+				new ExpiringLruCache<>(16, Duration.ofMinutes(5)));
+	}
+
+	@Test
+	void missingGoalIsNotFound() {
+		assertThatThrownBy(() -> ownershipService.requireGoalOwner(5, 1)).isInstanceOf(GoalNotFoundException.class);
+	}
+
+	@Test
+	void goalOfAnotherUserIsUnauthorized() {
+		when(goalRepository.findUserIdById(5)).thenReturn(Optional.of(2));
+
+		assertThatThrownBy(() -> ownershipService.requireGoalOwner(5, 1)).isInstanceOf(UnauthorizedException.class);
+		// Answered from the cache the second time, and still refused
+		assertThatThrownBy(() -> ownershipService.requireGoalOwner(5, 1)).isInstanceOf(UnauthorizedException.class);
+		assertThatCode(() -> ownershipService.requireGoalOwner(5, 2)).doesNotThrowAnyException();
+		verify(goalRepository, times(1)).findUserIdById(5);
+	}
+
+	@Test
+	void evictedGoalOwnerIsLookedUpAgain() {
+		when(goalRepository.findUserIdById(5)).thenReturn(Optional.of(1));
+		ownershipService.requireGoalOwner(5, 1);
+
+		when(goalRepository.findUserIdById(5)).thenReturn(Optional.of(2));
+		ownershipService.evictGoal(5);
+
+		assertThatThrownBy(() -> ownershipService.requireGoalOwner(5, 1)).isInstanceOf(UnauthorizedException.class);
+	}
+
+	@Test
+	void missingActivityIsNotFound() {
+		assertThatThrownBy(() -> ownershipService.requireActivityOwner(7, 1))
+				.isInstanceOf(ActivityNotFoundException.class);
+		assertThatThrownBy(() -> ownershipService.requireActivityOwner(7, 1, 5))
+				.isInstanceOf(ActivityNotFoundException.class);
+	}
+
+	@Test
+	void activityOfAnotherUserIsUnauthorized() {
+		when(activityRepository.findOwnershipById(7)).thenReturn(Optional.of(new ActivityOwnership(2, 5)));
+
+		assertThatThrownBy(() -> ownershipService.requireActivityOwner(7, 1))
+				.isInstanceOf(UnauthorizedException.class);
+		assertThatThrownBy(() -> ownershipService.requireActivityOwner(7, 1, 5))
+				.isInstanceOf(UnauthorizedException.class);
+		assertThatCode(() -> ownershipService.requireActivityOwner(7, 2)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void activityOfAnotherGoalIsMismatched() {
+		when(activityRepository.findOwnershipById(7)).thenReturn(Optional.of(new ActivityOwnership(1, 5)));
+
+		assertThatThrownBy(() -> ownershipService.requireActivityOwner(7, 1, 6))
+				.isInstanceOf(ActivityGoalMismatchException.class);
+		assertThatCode(() -> ownershipService.requireActivityOwner(7, 1, 5)).doesNotThrowAnyException();
+	}
+}
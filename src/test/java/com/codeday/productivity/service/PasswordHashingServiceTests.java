@@ -0,0 +1,39 @@
+package com.codeday.productivity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that a hashing pool too large for the request threads is shrunk instead of failing
+ * startup, and that a queue leaving no room for a hashing thread is rejected.
+ */
+class PasswordHashingServiceTests {
+
+	private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+
+	@Test
+	void poolLargerThanRequestThreadBudgetStillStarts() {
+		PasswordHashingService service = new PasswordHashingService(encoder, new SimpleMeterRegistry(), 500, 32, 2, 200);
+		try {
+			List<String> hashes = service.encodeAll(List.of("first", "second"));
+
+			assertThat(encoder.matches("first", hashes.get(0))).isTrue();
+			assertThat(encoder.matches("second", hashes.get(1))).isTrue();
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	void queueFillingRequestThreadBudgetIsRejected() {
+		assertThatThrownBy(() -> new PasswordHashingService(encoder, new SimpleMeterRegistry(), 0, 100, 2, 200))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("server.tomcat.threads.max");
+	}
+}
@@ -0,0 +1,114 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.entity.Activity;
+import com.codeday.productivity.entity.Goal;
+import com.codeday.productivity.entity.User;
+import com.codeday.productivity.repository.ActivityRepository;
+import com.codeday.productivity.repository.GoalRepository;
+import com.codeday.productivity.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks that purging a user deletes the user's goals and activities in chunks, including
+ * activities on other users' goals, and that those goals' activity totals are corrected.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:purge;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PurgeServiceTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private GoalRepository goalRepository;
+
+	@Autowired
+	private ActivityRepository activityRepository;
+
+	private ActivityRollupService rollupService;
+	private PurgeService purgeService;
+
+	@BeforeEach
+	void createService() {
+		rollupService = mock(ActivityRollupService.class);
+		// Chunks of two, so every delete takes several statements
+		purgeService = new PurgeService(jdbcTemplate, mock(OwnershipService.class), mock(ActivityTimerRegistry.class),
+				rollupService, transactionManager, 2, Duration.ZERO);
+	}
+
+	@AfterEach
+	void stopService() throws Exception {
+		purgeService.shutdown();
+	}
+
+	@Test
+	void purgingUserCorrectsTotalsOfOtherUsersGoals() {
+		User purged = saveUser("purged", "N");
+		User other = saveUser("other", "Y");
+		Goal ownGoal = saveGoal(purged);
+		Goal sharedGoal = saveGoal(other);
+		saveActivity(purged, ownGoal, 100);
+		for (int i = 0; i < 5; i++) {
+			saveActivity(purged, sharedGoal, 60);
+		}
+		Activity kept = saveActivity(other, sharedGoal, 50);
+		jdbcTemplate.update("UPDATE goal_tbl SET total_activity_duration = 350 WHERE id = ?", sharedGoal.getId());
+
+		purgeService.purgeUser(purged.getId());
+		verify(rollupService, timeout(5_000)).rebuild(purged.getId(), purged.getId());
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM activity_tbl WHERE user_id = ?",
+				Integer.class, purged.getId())).isZero();
+		assertThat(goalRepository.existsById(ownGoal.getId())).isFalse();
+		assertThat(activityRepository.existsById(kept.getId())).isTrue();
+		assertThat(jdbcTemplate.queryForObject("SELECT total_activity_duration FROM goal_tbl WHERE id = ?",
+				Long.class, sharedGoal.getId())).isEqualTo(50L);
+	}
+
+	private User saveUser(String name, String isActive) {
+		User user = TestFixtures.user(name, "Purge");
+		user.setIsActive(isActive);
+		return userRepository.save(user);
+	}
+
+	private Goal saveGoal(User user) {
+		return goalRepository.save(TestFixtures.goal(user));
+	}
+
+	private Activity saveActivity(User user, Goal goal, long duration) {
+		Activity activity = TestFixtures.activity(user, goal, "LEARNING");
+		activity.setIsComplete("Y");
+		activity.setDuration(duration);
+		return activityRepository.save(activity);
+	}
+}
@@ -0,0 +1,124 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.entity.Goal;
+import com.codeday.productivity.entity.Task;
+import com.codeday.productivity.model.TaskOperation;
+import com.codeday.productivity.model.TaskOperationResult;
+import com.codeday.productivity.repository.GoalRepository;
+import com.codeday.productivity.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the bulk task operations with the per-task service calls behind the single-task
+ * endpoints, for 100 and 1000 tasks on in-memory H2. Each path creates the tasks and then
+ * completes them; every service call commits on its own, as it would per HTTP request.
+ * <p>
+ * Not part of the regular test run; run with {@code ./mvnw test -Dtest=TaskBulkOperationsBenchmark}.
+ * </p>
+ */
+@DataJpaTest(showSql = false, properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({TaskService.class, PageSizePolicy.class})
+class TaskBulkOperationsBenchmark {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private GoalRepository goalRepository;
+
+	@Autowired
+	private TaskService taskService;
+
+	@MockBean
+	private TaskTimeAccumulator timeAccumulator;
+
+	@Test
+	void bulkOperationsAgainstPerTaskCalls() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		// Warm up both paths before measuring
+		perTask(newGoal(), 200);
+		bulk(newGoal(), 200);
+
+		System.out.printf("%6s %-9s %11s %9s%n", "tasks", "path", "statements", "ms");
+		for (int tasks : new int[]{100, 1000}) {
+			Goal perTaskGoal = newGoal();
+			statistics.clear();
+			long perTaskMillis = perTask(perTaskGoal, tasks);
+			long perTaskStatements = statistics.getPrepareStatementCount();
+
+			Goal bulkGoal = newGoal();
+			statistics.clear();
+			long bulkMillis = bulk(bulkGoal, tasks);
+			long bulkStatements = statistics.getPrepareStatementCount();
+
+			System.out.printf("%6d %-9s %11d %9d%n", tasks, "per-task", perTaskStatements, perTaskMillis);
+			System.out.printf("%6d %-9s %11d %9d%n", tasks, "bulk", bulkStatements, bulkMillis);
+			assertThat(bulkStatements * 10).isLessThan(perTaskStatements);
+			assertThat(goalRepository.findById(bulkGoal.getId()).orElseThrow().getCompletedTaskCount()).isEqualTo(tasks);
+		}
+	}
+
+	private long perTask(Goal goal, int tasks) {
+		long startedAt = System.nanoTime();
+		List<Integer> taskIds = new ArrayList<>(tasks);
+		for (int i = 0; i < tasks; i++) {
+			taskIds.add(taskService.saveTaskForGoal(goal, newTask(i)).getId());
+		}
+		for (int taskId : taskIds) {
+			taskService.markTaskAsComplete(goal, taskId, true);
+		}
+		return (System.nanoTime() - startedAt) / 1_000_000;
+	}
+
+	private long bulk(Goal goal, int tasks) {
+		long startedAt = System.nanoTime();
+		List<TaskOperation> creates = new ArrayList<>(tasks);
+		for (int i = 0; i < tasks; i++) {
+			TaskOperation operation = new TaskOperation();
+			operation.setType(TaskOperation.Type.CREATE);
+			operation.setTitle("Task " + i);
+			creates.add(operation);
+		}
+		List<TaskOperation> completions = new ArrayList<>(tasks);
+		for (TaskOperationResult result : taskService.applyOperations(goal, creates)) {
+			TaskOperation operation = new TaskOperation();
+			operation.setType(TaskOperation.Type.COMPLETE);
+			operation.setTaskId(result.getTaskId());
+			completions.add(operation);
+		}
+		taskService.applyOperations(goal, completions);
+		return (System.nanoTime() - startedAt) / 1_000_000;
+	}
+
+	private Goal newGoal() {
+		return goalRepository.save(TestFixtures.goal(userRepository.save(TestFixtures.user())));
+	}
+
+	private static Task newTask(int index) {
+		Task task = TestFixtures.task(null, "N");
+		task.setTitle("Task " + index);
+		return task;
+	}
+}
@@ -0,0 +1,102 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.entity.Goal;
+import com.codeday.productivity.entity.Task;
+import com.codeday.productivity.entity.User;
+import com.codeday.productivity.model.CursorPage;
+import com.codeday.productivity.model.TaskFilter;
+import com.codeday.productivity.model.TaskResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that paging through a task search returns every matching task of the user's goals
+ * exactly once, in goal and then task order, and that a task whose completion status was never
+ * set is found as not completed.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({TaskService.class, PageSizePolicy.class})
+class TaskSearchTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TaskService taskService;
+
+	@MockBean
+	private TaskTimeAccumulator timeAccumulator;
+
+	@Test
+	void pagesCoverEveryMatchingTaskOnceInGoalOrder() {
+		User user = persistUser();
+		Goal first = persistGoal(user);
+		Goal second = persistGoal(user);
+		Goal other = persistGoal(persistUser());
+		// Interleaved, so task ID order differs from goal order
+		List<Integer> expectedFirst = new ArrayList<>();
+		List<Integer> expectedSecond = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			expectedSecond.add(persistTask(second, i % 2 == 0 ? "N" : "Y").getId());
+			expectedFirst.add(persistTask(first, i % 2 == 0 ? "N" : "Y").getId());
+			persistTask(other, "N");
+		}
+		List<Integer> expected = new ArrayList<>();
+		expected.addAll(expectedFirst.stream().filter(id -> expectedFirst.indexOf(id) % 2 == 0).toList());
+		expected.addAll(expectedSecond.stream().filter(id -> expectedSecond.indexOf(id) % 2 == 0).toList());
+		entityManager.clear();
+
+		TaskFilter filter = new TaskFilter(null, "N", null, null, null, null, null);
+		List<Integer> found = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			CursorPage<TaskResponse> page = taskService.filterTasks(user, filter, cursor, 3);
+			page.getItems().forEach(task -> found.add(task.getId()));
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(found).containsExactlyElementsOf(expected);
+		assertThat(pages).isEqualTo(3);
+	}
+
+	@Test
+	void taskWithoutCompletionStatusIsNotCompleted() {
+		User user = persistUser();
+		Goal goal = persistGoal(user);
+		Task task = persistTask(goal, "N");
+		jdbcTemplate.update("UPDATE task_tbl SET is_completed = NULL WHERE id = ?", task.getId());
+		entityManager.clear();
+
+		assertThat(taskService.filterTasks(user, new TaskFilter(null, "N", null, null, null, null, null), null, null)
+				.getItems()).extracting(TaskResponse::getId).containsExactly(task.getId());
+		assertThat(taskService.filterTasks(user, new TaskFilter(null, "Y", null, null, null, null, null), null, null)
+				.getItems()).isEmpty();
+	}
+
+	private User persistUser() {
+		return entityManager.persist(TestFixtures.user());
+	}
+
+	private Goal persistGoal(User user) {
+		return entityManager.persistAndFlush(TestFixtures.goal(user));
+	}
+
+	private Task persistTask(Goal goal, String isCompleted) {
+		return entityManager.persistAndFlush(TestFixtures.task(goal, isCompleted));
+	}
+}
@@ -0,0 +1,156 @@
+package com.codeday.productivity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that the task time accumulator writes every recorded delta exactly once: while
+ * records race with flushes, after a failed flush and on shutdown, and that time recorded
+ * under the wrong goal is dropped.
+ */
+class TaskTimeAccumulatorTests {
+
+	private JdbcTemplate jdbcTemplate;
+	private SimpleMeterRegistry registry;
+	private TaskTimeAccumulator accumulator;
+
+	@BeforeEach
+	void createTables() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:task-time-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE goal_tbl (id INT PRIMARY KEY, total_task_time BIGINT NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE task_tbl (id INT PRIMARY KEY, goal_id INT NOT NULL, time_spent BIGINT NOT NULL)");
+		jdbcTemplate.update("INSERT INTO goal_tbl VALUES (1, 0), (2, 0)");
+		jdbcTemplate.update("INSERT INTO task_tbl VALUES (10, 1, 0), (11, 1, 0), (20, 2, 0)");
+
+		registry = new SimpleMeterRegistry();
+		// Long intervals, so only the flushes the tests make run
+		accumulator = new TaskTimeAccumulator(jdbcTemplate, new DataSourceTransactionManager(dataSource), registry,
+				Duration.ofHours(1), Duration.ofHours(1), 1_000_000);
+	}
+
+	@AfterEach
+	void dropDatabase() throws Exception {
+		accumulator.shutdown();
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	@Test
+	void flushAddsRecordedTimeToTasksAndGoals() {
+		accumulator.record(1, 10, 30);
+		accumulator.record(1, 10, 15);
+		accumulator.record(1, 11, 5);
+		accumulator.record(2, 20, 7);
+		accumulator.flush();
+
+		assertThat(taskTime(10)).isEqualTo(45);
+		assertThat(taskTime(11)).isEqualTo(5);
+		assertThat(goalTime(1)).isEqualTo(50);
+		assertThat(goalTime(2)).isEqualTo(7);
+		assertThat(accumulator.pendingCount()).isZero();
+	}
+
+	@Test
+	void recordsRacingWithFlushesAreWrittenExactlyOnce() throws Exception {
+		int threads = 8;
+		int ticks = 2_000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean recording = new AtomicBoolean(true);
+		try {
+			Future<?> flusher = executor.submit(() -> {
+				start.await();
+				while (recording.get()) {
+					accumulator.flush();
+				}
+				return null;
+			});
+			List<Future<?>> recorders = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int taskId = t % 2 == 0 ? 10 : 11;
+				recorders.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < ticks; i++) {
+						accumulator.record(1, taskId, 1);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> recorder : recorders) {
+				recorder.get();
+			}
+			recording.set(false);
+			flusher.get();
+		} finally {
+			executor.shutdown();
+		}
+		accumulator.flush();
+
+		assertThat(taskTime(10) + taskTime(11)).isEqualTo((long) threads * ticks);
+		assertThat(goalTime(1)).isEqualTo((long) threads * ticks);
+	}
+
+	@Test
+	void failedFlushPutsDeltasBackForTheNextOne() {
+		accumulator.record(1, 10, 30);
+		jdbcTemplate.execute("ALTER TABLE goal_tbl RENAME TO goal_tbl_offline");
+
+		assertThatThrownBy(accumulator::flush).isInstanceOf(RuntimeException.class);
+		assertThat(accumulator.pendingCount()).isEqualTo(1);
+
+		jdbcTemplate.execute("ALTER TABLE goal_tbl_offline RENAME TO goal_tbl");
+		accumulator.record(1, 10, 10);
+		accumulator.flush();
+
+		// The task update of the failed flush was rolled back with it
+		assertThat(taskTime(10)).isEqualTo(40);
+		assertThat(goalTime(1)).isEqualTo(40);
+	}
+
+	@Test
+	void shutdownWritesPendingTime() throws Exception {
+		accumulator.record(2, 20, 12);
+		accumulator.shutdown();
+
+		assertThat(taskTime(20)).isEqualTo(12);
+		assertThat(goalTime(2)).isEqualTo(12);
+	}
+
+	@Test
+	void timeForTaskOutsideGoalIsDropped() {
+		accumulator.record(2, 10, 25);
+		accumulator.flush();
+
+		assertThat(taskTime(10)).isZero();
+		assertThat(goalTime(2)).isZero();
+		assertThat(accumulator.pendingCount()).isZero();
+		assertThat(registry.counter("productivity.task_time.dropped").count()).isEqualTo(1);
+	}
+
+	private long taskTime(int taskId) {
+		return jdbcTemplate.queryForObject("SELECT time_spent FROM task_tbl WHERE id = ?", Long.class, taskId);
+	}
+
+	private long goalTime(int goalId) {
+		return jdbcTemplate.queryForObject("SELECT total_task_time FROM goal_tbl WHERE id = ?", Long.class, goalId);
+	}
+}
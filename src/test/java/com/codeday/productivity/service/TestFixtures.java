@@ -0,0 +1,57 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.entity.Activity;
+import com.codeday.productivity.entity.Goal;
+import com.codeday.productivity.entity.Task;
+import com.codeday.productivity.entity.User;
+
+/**
+ * Builds the unsaved users, goals, tasks and activities the service tests and benchmarks store.
+ * Each user gets an email address no other user has, so fixtures never collide on the unique
+ * email column.
+ */
+final class TestFixtures {
+
+	private TestFixtures() {
+	}
+
+	static User user() {
+		return user("Ada", "Lovelace");
+	}
+
+	static User user(String firstName, String lastName) {
+		User user = new User();
+		user.setFirstName(firstName);
+		user.setLastName(lastName);
+		user.setEmail(firstName.toLowerCase() + System.nanoTime() + "@example.com");
+		user.setPassword("secret");
+		user.setIsActive("Y");
+		return user;
+	}
+
+	static Goal goal(User user) {
+		Goal goal = new Goal();
+		goal.setTitle("Goal");
+		goal.setIsComplete("N");
+		goal.setUser(user);
+		return goal;
+	}
+
+	static Task task(Goal goal, String isCompleted) {
+		Task task = new Task();
+		task.setTitle("Task");
+		task.setIsCompleted(isCompleted);
+		task.setGoal(goal);
+		return task;
+	}
+
+	static Activity activity(User user, Goal goal, String type) {
+		Activity activity = new Activity();
+		activity.setTitle("Activity");
+		activity.setType(type);
+		activity.setIsComplete("N");
+		activity.setUser(user);
+		activity.setGoal(goal);
+		return activity;
+	}
+}
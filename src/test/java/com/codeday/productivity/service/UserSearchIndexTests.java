@@ -0,0 +1,120 @@
+package com.codeday.productivity.service;
+
+import com.codeday.productivity.model.UserSearchResult;
+import com.codeday.productivity.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that searches rank every matching user rather than a sample, that short one-word
+ * queries shared by many users return the same top results in rank order, and that warming the
+ * index never overwrites users saved or removed while it runs.
+ */
+class UserSearchIndexTests {
+
+	private UserRepository repository;
+	private UserSearchIndex index;
+
+	@BeforeEach
+	void createIndex() {
+		repository = mock(UserRepository.class);
+		index = new UserSearchIndex(repository, mock(PlatformTransactionManager.class));
+	}
+
+	@Test
+	void bestMatchIsFoundAmongManyWeakerMatches() {
+		// 1000 email-prefix matches whose tokens sort before the one name-prefix match
+		for (int i = 1; i <= 1000; i++) {
+			index.index(new UserSearchResult(i, "Zed", "Zimmer", "alpha" + i + "@example.com"));
+		}
+		index.index(new UserSearchResult(5000, "Ana", "Alvarez", "ana@example.com"));
+
+		List<UserSearchResult> results = index.search("al", 5);
+
+		assertThat(results).hasSize(5);
+		assertThat(results.get(0).getId()).isEqualTo(5000);
+	}
+
+	@Test
+	void shortPrefixSharedByManyUsersReturnsTopResultsInRankOrder() {
+		for (int i = 1; i <= 5_000; i++) {
+			index.index(new UserSearchResult(i, "Alan", String.format("Baker%05d", i), "user" + i + "@example.com"));
+			index.index(new UserSearchResult(100_000 + i, "Zed", "Zimmer", "al" + i + "@example.com"));
+		}
+		index.index(new UserSearchResult(200_000, "Al", "Young", "young@example.com"));
+		// Renamed and removed users leave their old prefixes
+		index.index(new UserSearchResult(1, "Bob", "Baker00001", "user1@example.com"));
+		index.remove(2);
+
+		assertThat(index.search("al", 4)).extracting(UserSearchResult::getId).containsExactly(200_000, 3, 4, 5);
+		// Only a name prefix here, so ranked by last name with the others
+		assertThat(index.search("a", 2)).extracting(UserSearchResult::getId).containsExactly(3, 4);
+		// Email matches only follow once the name matches run out
+		assertThat(index.search("zim", 2)).extracting(UserSearchResult::getId).containsExactly(100_001, 100_002);
+		assertThat(index.search("al1", 3)).extracting(UserSearchResult::getId).containsExactly(100_001, 100_010, 100_011);
+	}
+
+	@Test
+	void multiWordQueryMatchesEveryWord() {
+		for (int i = 1; i <= 1000; i++) {
+			index.index(new UserSearchResult(i, "Ada", "Byron" + i, "ada" + i + "@example.com"));
+		}
+		index.index(new UserSearchResult(5000, "Ada", "Lovelace", "countess@example.com"));
+
+		List<UserSearchResult> results = index.search("ada love", 10);
+
+		assertThat(results).extracting(UserSearchResult::getId).containsExactly(5000);
+	}
+
+	@Test
+	void warmingSkipsUsersSavedAfterItStarted() {
+		UserSearchResult stale = new UserSearchResult(1, "Ada", "Byron", "ada@example.com");
+		UserSearchResult fresh = new UserSearchResult(1, "Ada", "Lovelace", "ada@example.com");
+		UserSearchResult other = new UserSearchResult(2, "Grace", "Hopper", "grace@example.com");
+		// The user is saved while the stream is read, after the stream's snapshot was taken
+		when(repository.streamSearchEntries()).thenReturn(Stream.of(1, 2).map(id -> {
+			if (id == 1) {
+				index.index(fresh);
+				return stale;
+			}
+			return other;
+		}));
+
+		index.warm();
+
+		assertThat(index.search("lovelace", 10)).containsExactly(fresh);
+		assertThat(index.search("byron", 10)).isEmpty();
+		assertThat(index.search("hopper", 10)).containsExactly(other);
+	}
+
+	@Test
+	void warmingSkipsUsersRemovedAfterItStarted() {
+		UserSearchResult removed = new UserSearchResult(1, "Ada", "Byron", "ada@example.com");
+		when(repository.streamSearchEntries()).thenReturn(Stream.of(removed).peek(user -> index.remove(user.getId())));
+
+		index.warm();
+
+		assertThat(index.search("byron", 10)).isEmpty();
+	}
+
+	@Test
+	void usersSavedAfterWarmingAreIndexed() {
+		when(repository.streamSearchEntries()).thenReturn(IntStream.rangeClosed(1, 3)
+				.mapToObj(id -> new UserSearchResult(id, "User", "Number" + id, "user" + id + "@example.com")));
+		index.warm();
+
+		index.index(new UserSearchResult(2, "User", "Renamed", "user2@example.com"));
+
+		assertThat(index.search("renamed", 10)).extracting(UserSearchResult::getId).containsExactly(2);
+		assertThat(index.search("number", 10)).extracting(UserSearchResult::getId).containsExactly(1, 3);
+	}
+}